@@ -0,0 +1,238 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.array.ArraySearchUtil;
+import com.jmt.jseries.benchmark.BenchmarkData.DomainType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The searches of {@link ArraySearchUtil}, time per single lookup.
+ * Every operation has its own method, so that the loop over the queries contains just the call.
+ * Random queries measure the plain binary search, sorted queries the hinted and batch lookups.
+ * With the regular domain the array contains equally spaced millis, with the irregular one random gaps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArraySearchUtilBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public DomainType domain;
+
+    private long[] array;
+
+    private Instant[] instants;
+
+    private long[] queries;
+
+    private Instant[] instantQueries;
+
+    private long[] sortedQueries;
+
+    private int[] out;
+
+    @Setup
+    public void setup() {
+        array = BenchmarkData.domain(domain, size, 1).toMillisArray();
+        instants = new Instant[size];
+        for (int i = 0; i < size; i++) {
+            instants[i] = Instant.ofEpochMilli(array[i]);
+        }
+        Random random = new Random(2);
+        long first = array[0];
+        long range = array[size - 1] - first + 1;
+        queries = new long[QUERIES];
+        instantQueries = new Instant[QUERIES];
+        for (int k = 0; k < QUERIES; k++) {
+            queries[k] = first + (long) (random.nextDouble() * range);
+            instantQueries[k] = Instant.ofEpochMilli(queries[k]);
+        }
+        sortedQueries = queries.clone();
+        Arrays.sort(sortedQueries);
+        out = new int[QUERIES];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsFind(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.find(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsFindGE(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.findGE(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsFindGT(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.findGT(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsFindLE(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.findLE(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsFindLT(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.findLT(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsLowerBound(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.lowerBound(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsUpperBound(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.upperBound(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void longsEqualRange(Blackhole bh) {
+        for (long x : queries) {
+            bh.consume(ArraySearchUtil.equalRange(array, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsFind(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.find(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsFindGE(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.findGE(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsFindGT(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.findGT(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsFindLE(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.findLE(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsFindLT(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.findLT(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsLowerBound(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.lowerBound(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsUpperBound(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.upperBound(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void objectsEqualRange(Blackhole bh) {
+        for (Instant x : instantQueries) {
+            bh.consume(ArraySearchUtil.equalRange(instants, x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int findLEHint() {
+        int position = -1;
+        for (long x : sortedQueries) {
+            position = ArraySearchUtil.findLE(array, 0, array.length, x, position);
+        }
+        return position;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] findLEBatch() {
+        ArraySearchUtil.findLE(array, sortedQueries, out);
+        return out;
+    }
+}
@@ -0,0 +1,78 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+import com.jmt.jseries.array.RegularInstantSortedArray;
+
+import java.util.Random;
+
+/**
+ * Deterministic input data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final long START = 1_500_000_000_000L;
+
+    static final long STEP = 60_000L;
+
+    /**
+     * REGULAR - time points on a fixed grid, backed by RegularInstantSortedArray.
+     * IRREGULAR - random gaps around the same mean step, backed by InstantSortedArray.
+     */
+    enum DomainType {
+        REGULAR, IRREGULAR
+    }
+
+    private BenchmarkData() {
+    }
+
+    static PrimitiveInstantSortedArray domain(DomainType type, int size, long seed) {
+        if (type == DomainType.REGULAR) {
+            return RegularInstantSortedArray.of(START, STEP, size);
+        }
+        return InstantSortedArray.ofMillisNoClone(millis(size, seed));
+    }
+
+    static long[] millis(int size, long seed) {
+        Random random = new Random(seed);
+        long[] result = new long[size];
+        long t = START;
+        for (int i = 0; i < size; i++) {
+            result[i] = t;
+            t += 1 + random.nextInt((int) (2 * STEP));
+        }
+        return result;
+    }
+
+    static double[] values(int size, long seed) {
+        Random random = new Random(seed);
+        double[] result = new double[size];
+        double x = 100;
+        for (int i = 0; i < size; i++) {
+            x += random.nextGaussian();
+            result[i] = x;
+        }
+        return result;
+    }
+
+    static InstantDoubleSeries series(String name, DomainType type, int size, long seed) {
+        return InstantDoubleSeries.create(name, domain(type, size, seed), DoubleArray.ofNoClone(values(size, seed)), 0.0);
+    }
+}
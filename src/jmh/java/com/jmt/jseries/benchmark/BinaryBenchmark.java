@@ -0,0 +1,181 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.Join;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.algebra.Binary;
+import com.jmt.jseries.array.Array;
+import com.jmt.jseries.benchmark.BenchmarkData.DomainType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * All operations of {@link Binary}, for each kind of the second operand.
+ * With the regular domain both series share the same grid, with the irregular one their time points differ.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+
+    public enum Operation {
+        ADD, SUB, MUL, DIV, DIV0, MAX, MIN
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public DomainType domain;
+
+    @Param
+    public Operation operation;
+
+    private Series<Instant, Double> op1;
+
+    private Series<Instant, Double> op2;
+
+    private Function<Instant, Double> function;
+
+    private Array<Double> array;
+
+    @Setup
+    public void setup() {
+        op1 = BenchmarkData.series("a", domain, size, 1);
+        op2 = BenchmarkData.series("b", domain, size, 2);
+        function = op2;
+        array = op2.values();
+    }
+
+    @Benchmark
+    public Series<Instant, Double> scalar() {
+        switch (operation) {
+            case ADD:
+                return Binary.add(op1, 2.0);
+            case SUB:
+                return Binary.sub(op1, 2.0);
+            case MUL:
+                return Binary.mul(op1, 2.0);
+            case DIV:
+                return Binary.div(op1, 2.0);
+            case DIV0:
+                return Binary.div0(op1, 2.0);
+            case MAX:
+                return Binary.max(op1, 2.0);
+            case MIN:
+                return Binary.min(op1, 2.0);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+
+    @Benchmark
+    public Series<Instant, Double> function() {
+        switch (operation) {
+            case ADD:
+                return Binary.add(op1, function);
+            case SUB:
+                return Binary.sub(op1, function);
+            case MUL:
+                return Binary.mul(op1, function);
+            case DIV:
+                return Binary.div(op1, function);
+            case DIV0:
+                return Binary.div0(op1, function);
+            case MAX:
+                return Binary.max(op1, function);
+            case MIN:
+                return Binary.min(op1, function);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+
+    @Benchmark
+    public Series<Instant, Double> array() {
+        switch (operation) {
+            case ADD:
+                return Binary.add(op1, array);
+            case SUB:
+                return Binary.sub(op1, array);
+            case MUL:
+                return Binary.mul(op1, array);
+            case DIV:
+                return Binary.div(op1, array);
+            case DIV0:
+                return Binary.div0(op1, array);
+            case MAX:
+                return Binary.max(op1, array);
+            case MIN:
+                return Binary.min(op1, array);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+
+    @Benchmark
+    public Series<Instant, Double> seriesLeft() {
+        return series(Join.LEFT);
+    }
+
+    @Benchmark
+    public Series<Instant, Double> seriesInner() {
+        return series(Join.INNER);
+    }
+
+    @Benchmark
+    public Series<Instant, Double> seriesOuter() {
+        return series(Join.OUTER);
+    }
+
+    private Series<Instant, Double> series(Join join) {
+        switch (operation) {
+            case ADD:
+                return Binary.add(op1, op2, join);
+            case SUB:
+                return Binary.sub(op1, op2, join);
+            case MUL:
+                return Binary.mul(op1, op2, join);
+            case DIV:
+                return Binary.div(op1, op2, join);
+            case DIV0:
+                return Binary.div0(op1, op2, join);
+            case MAX:
+                return Binary.max(op1, op2, join);
+            case MIN:
+                return Binary.min(op1, op2, join);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.SeriesImpl;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.DoubleArray.DoubleArrayBuilder;
+import com.jmt.jseries.array.GenericArray;
+import com.jmt.jseries.array.GenericSortedArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.InstantSortedArray.SortedInstantArrayBuilder;
+import com.jmt.jseries.array.RegularInstantSortedArray;
+import com.jmt.jseries.benchmark.BenchmarkData.DomainType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of series through the different factory methods and builders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public DomainType domain;
+
+    private long[] millis;
+
+    private double[] values;
+
+    private Instant[] instants;
+
+    private List<Instant> instantList;
+
+    private List<Double> valueList;
+
+    private Series<Instant, Double> generic;
+
+    @Setup
+    public void setup() {
+        millis = BenchmarkData.domain(domain, size, 1).toMillisArray();
+        values = BenchmarkData.values(size, 1);
+        instants = new Instant[size];
+        instantList = new ArrayList<>(size);
+        valueList = new ArrayList<>(size);
+        Double[] boxed = new Double[size];
+        for (int i = 0; i < size; i++) {
+            instants[i] = Instant.ofEpochMilli(millis[i]);
+            instantList.add(instants[i]);
+            valueList.add(values[i]);
+            boxed[i] = values[i];
+        }
+        generic = new SeriesImpl<>("g", GenericSortedArray.of(instants), GenericArray.of(boxed), 0.0);
+    }
+
+    @Benchmark
+    public InstantDoubleSeries fromMillis() {
+        return InstantDoubleSeries.create("s",
+                domain == DomainType.REGULAR
+                        ? RegularInstantSortedArray.of(millis[0], BenchmarkData.STEP, size)
+                        : InstantSortedArray.ofMillis(millis),
+                DoubleArray.of(values), 0.0);
+    }
+
+    @Benchmark
+    public InstantDoubleSeries fromInstants() {
+        return InstantDoubleSeries.create("s", instants, values);
+    }
+
+    @Benchmark
+    public InstantDoubleSeries fromCollections() {
+        return InstantDoubleSeries.create("s", instantList, valueList);
+    }
+
+    @Benchmark
+    public InstantDoubleSeries fromBuilders() {
+        SortedInstantArrayBuilder domainBuilder = InstantSortedArray.builder(size);
+        DoubleArrayBuilder valuesBuilder = DoubleArray.builder(size);
+        for (int i = 0; i < size; i++) {
+            domainBuilder.addMillis(millis[i]);
+            valuesBuilder.add(values[i]);
+        }
+        return InstantDoubleSeries.create("s", domainBuilder.build(), valuesBuilder.build(), 0.0);
+    }
+
+    @Benchmark
+    public InstantDoubleSeries fromGenericSeries() {
+        return InstantDoubleSeries.of(generic);
+    }
+}
@@ -0,0 +1,95 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.Series;
+import com.jmt.jseries.algebra.Moving;
+import com.jmt.jseries.benchmark.BenchmarkData.DomainType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All operations of {@link Moving}, over different window lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovingBenchmark {
+
+    public enum Operation {
+        AVG, AVG_EXP, SUM, MIN, MAX, SHIFT, QUANTILE, QUANTILE_INTERPOLATED, QUANTILE_APPROX
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public DomainType domain;
+
+    @Param({"10", "100", "1000"})
+    public int period;
+
+    @Param
+    public Operation operation;
+
+    private Series<Instant, Double> src;
+
+    @Setup
+    public void setup() {
+        src = BenchmarkData.series("a", domain, size, 1);
+    }
+
+    @Benchmark
+    public Series<Instant, Double> moving() {
+        switch (operation) {
+            case AVG:
+                return Moving.avg(src, period);
+            case AVG_EXP:
+                return Moving.avgExp(src, period);
+            case SUM:
+                return Moving.sum(src, period);
+            case MIN:
+                return Moving.min(src, period);
+            case MAX:
+                return Moving.max(src, period);
+            case SHIFT:
+                return Moving.shift(src, period);
+            case QUANTILE:
+                return Moving.quantile(src, period, 0.9);
+            case QUANTILE_INTERPOLATED:
+                return Moving.quantile(src, period, 0.9, true);
+            case QUANTILE_APPROX:
+                return Moving.quantileApprox(src, period, 0.9, 0.01);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+}
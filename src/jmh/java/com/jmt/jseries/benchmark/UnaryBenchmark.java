@@ -0,0 +1,84 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.benchmark;
+
+import com.jmt.jseries.Series;
+import com.jmt.jseries.algebra.Unary;
+import com.jmt.jseries.benchmark.BenchmarkData.DomainType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All operations of {@link Unary}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnaryBenchmark {
+
+    public enum Operation {
+        MINUS, ABS, SQR, SQRT, SGN
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param
+    public DomainType domain;
+
+    @Param
+    public Operation operation;
+
+    private Series<Instant, Double> op;
+
+    @Setup
+    public void setup() {
+        op = BenchmarkData.series("a", domain, size, 1);
+    }
+
+    @Benchmark
+    public Series<Instant, Double> unary() {
+        switch (operation) {
+            case MINUS:
+                return Unary.minus(op);
+            case ABS:
+                return Unary.abs(op);
+            case SQR:
+                return Unary.sqr(op);
+            case SQRT:
+                return Unary.sqrt(op);
+            case SGN:
+                return Unary.sgn(op);
+            default:
+                throw new IllegalArgumentException("" + operation);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+
+/**
+ * Forward iterator over the points of an InstantDoubleSeries with unboxed access,
+ * it allocates nothing neither when moving nor when reading the current point.
+ * <pre>
+ * InstantDoubleCursor cursor = series.pointCursor();
+ * while (cursor.next()) {
+ *     process(cursor.timeMillis(), cursor.value());
+ * }
+ * </pre>
+ * The cursor starts before the first point. It is stateful and not thread-safe, every thread needs its own one.
+ */
+public final class InstantDoubleCursor {
+
+    private final PrimitiveInstantSortedArray domain;
+
+    private final PrimitiveDoubleArray values;
+
+    private final int size;
+
+    private int position = -1;
+
+    InstantDoubleCursor(InstantDoubleSeries series) {
+        this.domain = series.domain();
+        this.values = series.values();
+        this.size = series.size();
+    }
+
+    /**
+     * Moves to the next point, returns false if there is none.
+     */
+    public boolean next() {
+        if (position < size) {
+            position++;
+        }
+        return position < size;
+    }
+
+    /**
+     * Moves to the last point with time lower or equal to epochMillis and returns true,
+     * or before the first point and returns false if there is none.
+     * Seeking forward gallops from the current position, so a sequence of increasing times
+     * takes amortized O(1) per call for dense times.
+     */
+    public boolean seek(long epochMillis) {
+        position = domain.findLE(epochMillis, Math.min(position, size - 1));
+        return position >= 0;
+    }
+
+    /**
+     * Moves before the first point.
+     */
+    public void reset() {
+        position = -1;
+    }
+
+    /**
+     * The index of the current point, -1 before the first point and size after the last one.
+     */
+    public int position() {
+        return position;
+    }
+
+    public long timeMillis() {
+        checkPosition();
+        return domain.getMillis(position);
+    }
+
+    public double value() {
+        checkPosition();
+        return values.getDouble(position);
+    }
+
+    private void checkPosition() {
+        if (position < 0 || position >= size) {
+            throw new IllegalStateException("No current point. position: " + position + " size: " + size);
+        }
+    }
+}
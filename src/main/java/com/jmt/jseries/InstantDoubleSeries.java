@@ -18,12 +18,30 @@ package com.jmt.jseries;
 import com.jmt.jseries.array.Array;
 import com.jmt.jseries.array.DoubleArray;
 import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.ParallelUtil;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+import com.jmt.jseries.array.RegularInstantSortedArray;
 import com.jmt.jseries.array.SortedArray;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.LongToDoubleFunction;
 
-public class InstantDoubleSeries extends SeriesImpl<Instant, Double> {
+/**
+ * Series of doubles over instants, backed by primitive arrays.
+ * Besides the generic Series API, it provides unboxed access to the data
+ * ({@link #timeMillisAt(int)}, {@link #valueAt(int)}, {@link #applyAsDouble(long)})
+ * and unboxed transformations ({@link #map(DoubleUnaryOperator)}, {@link #zip}).
+ * The transformations inherited from Series return InstantDoubleSeries as well.
+ * If the domain or the values passed to the factory methods are not primitive arrays,
+ * they are copied into primitive ones.
+ */
+public class InstantDoubleSeries extends SeriesImpl<Instant, Double> implements LongToDoubleFunction {
 
     private static final long serialVersionUID = 1L;
 
@@ -77,9 +95,373 @@ public class InstantDoubleSeries extends SeriesImpl<Instant, Double> {
         return new InstantDoubleSeries(name, domain, values, defaultValue);
     }
 
+    /**
+     * Converts any Series of doubles over instants into InstantDoubleSeries.
+     * The arrays are shared if they are primitive already.
+     */
+    public static InstantDoubleSeries of(Series<Instant, Double> series) {
+        if (series instanceof InstantDoubleSeries) {
+            return (InstantDoubleSeries) series;
+        }
+        return create(series.name(), series.domain(), series.values(), series.defaultValue());
+    }
+
     protected InstantDoubleSeries(
             String name, SortedArray<Instant> domain,
             Array<Double> values, double defaultValue) {
-        super(name, domain, values, defaultValue);
+        super(name, PrimitiveInstantSortedArray.of(domain), PrimitiveDoubleArray.of(values), defaultValue);
+    }
+
+    @Override
+    public PrimitiveInstantSortedArray domain() {
+        return (PrimitiveInstantSortedArray) super.domain();
+    }
+
+    @Override
+    public PrimitiveDoubleArray values() {
+        return (PrimitiveDoubleArray) super.values();
+    }
+
+    public long timeMillisAt(int i) {
+        return domain().getMillis(i);
+    }
+
+    public double valueAt(int i) {
+        return values().getDouble(i);
+    }
+
+    public double defaultDoubleValue() {
+        return defaultValue();
+    }
+
+    /**
+     * Unboxed version of {@link #apply(Instant)}.
+     * Returns the value at the closest lower or equal time point, or the default value.
+     */
+    @Override
+    public double applyAsDouble(long epochMillis) {
+        int index = domain().findLE(epochMillis);
+        return index < 0 ? defaultDoubleValue() : valueAt(index);
+    }
+
+    @Override
+    public Double apply(Instant x) {
+        return applyAsDouble(x.toEpochMilli());
+    }
+
+    /**
+     * Allocation-free forward iteration over the points, see {@link InstantDoubleCursor}.
+     */
+    public InstantDoubleCursor pointCursor() {
+        return new InstantDoubleCursor(this);
+    }
+
+    @Override
+    public InstantDoubleSeries withName(String name) {
+        return new InstantDoubleSeries(name, domain(), values(), defaultDoubleValue());
+    }
+
+    @Override
+    public InstantDoubleSeries withValues(Array<Double> values) {
+        return new InstantDoubleSeries(name(), domain(), values, defaultDoubleValue());
+    }
+
+    @Override
+    public InstantDoubleSeries slice(int from, int toExcl) {
+        return new InstantDoubleSeries(name(), domain().slice(from, toExcl), values().slice(from, toExcl), defaultDoubleValue());
+    }
+
+    @Override
+    public InstantDoubleSeries slice(Instant from, Instant toExcl) {
+        return sliceMillis(from.toEpochMilli(), toExcl.toEpochMilli());
+    }
+
+    /**
+     * Returns the points with time in the range from (inclusive) .. toExcl (exclusive).
+     */
+    public InstantDoubleSeries sliceMillis(long from, long toExcl) {
+        int fromIndex = domain().findLT(from) + 1;
+        int toIndex = Math.max(fromIndex, domain().findLT(toExcl) + 1);
+        return slice(fromIndex, toIndex);
+    }
+
+    @Override
+    public InstantDoubleSeries reindex(SortedArray<Instant> target) {
+        PrimitiveInstantSortedArray targetDomain = PrimitiveInstantSortedArray.of(target);
+        int size = targetDomain.size();
+        int[] indices = new int[size];
+        domain().findLE(targetDomain.toMillisArray(), indices);
+        double[] result = new double[size];
+        double defaultValue = defaultDoubleValue();
+        for (int i = 0; i < size; i++) {
+            result[i] = indices[i] < 0 ? defaultValue : valueAt(indices[i]);
+        }
+        return new InstantDoubleSeries(name(), targetDomain, DoubleArray.ofNoClone(result), defaultValue);
+    }
+
+    public InstantDoubleSeries map(DoubleUnaryOperator mapper) {
+        double[] result = new double[size()];
+        mapRange(mapper, result, 0, result.length);
+        return withValues(result);
+    }
+
+    /**
+     * Same as {@link #map(DoubleUnaryOperator)}, but large series are split into chunks
+     * mapped in parallel. The mapper must be stateless.
+     */
+    public InstantDoubleSeries mapParallel(DoubleUnaryOperator mapper) {
+        double[] result = new double[size()];
+        ParallelUtil.forEachChunk(result.length, ParallelUtil.DEFAULT_THRESHOLD,
+                (from, toExcl) -> mapRange(mapper, result, from, toExcl));
+        return withValues(result);
+    }
+
+    private void mapRange(DoubleUnaryOperator mapper, double[] result, int from, int toExcl) {
+        //Bulk copy first, so that compressed values are decoded sequentially
+        values().getDoubles(from, toExcl, result, from);
+        for (int i = from; i < toExcl; i++) {
+            result[i] = mapper.applyAsDouble(result[i]);
+        }
+    }
+
+    /**
+     * The operand2 is evaluated at every time point of this series.
+     * If it is an InstantDoubleSeries, the domains are merged in a single linear pass
+     * instead of searching operand2 for every point.
+     */
+    public InstantDoubleSeries zip(LongToDoubleFunction operand2, DoubleBinaryOperator operator) {
+        if (operand2 instanceof InstantDoubleSeries) {
+            return zip((InstantDoubleSeries) operand2, Join.LEFT, operator);
+        }
+        int size = size();
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = operator.applyAsDouble(valueAt(i), operand2.applyAsDouble(timeMillisAt(i)));
+        }
+        return withValues(result);
+    }
+
+    /**
+     * Combines this series with operand2 over a domain given by the join policy.
+     * Both domains are walked with a linear merge cursor. At every time point of the result,
+     * the series are accessed as total functions, i.e. the value at the last lower or equal time point
+     * is taken (the last one in case of duplicates), or the default value if there is no such point.
+     * The result has the name and the default value of this series.
+     */
+    public InstantDoubleSeries zip(Series<Instant, Double> operand2, Join join, DoubleBinaryOperator operator) {
+        InstantDoubleSeries other = of(operand2);
+        if (RegularInstantSortedArray.sameGrid(domain(), other.domain())) {
+            //All the join policies give the same points, the values are zipped by index
+            return zip(other.values(), operator);
+        }
+        switch (join) {
+            case LEFT:
+                return zipLeft(other, operator);
+            case INNER:
+                return zipInner(other, operator);
+            case OUTER:
+                return zipOuter(other, operator);
+            default:
+                throw new IllegalArgumentException("" + join);
+        }
+    }
+
+    /**
+     * Same as {@link #zip(Series, Join, DoubleBinaryOperator)} with {@link Join#LEFT},
+     * but large series are split into chunks processed in parallel. The operator must be stateless.
+     */
+    public InstantDoubleSeries zipParallel(Series<Instant, Double> operand2, DoubleBinaryOperator operator) {
+        InstantDoubleSeries other = of(operand2);
+        if (RegularInstantSortedArray.sameGrid(domain(), other.domain())) {
+            return zipParallel(other.values(), operator);
+        }
+        double[] result = new double[size()];
+        ParallelUtil.forEachChunk(result.length, ParallelUtil.DEFAULT_THRESHOLD,
+                (from, toExcl) -> zipLeftRange(other, operator, result, from, toExcl));
+        return withValues(result);
+    }
+
+    private InstantDoubleSeries zipLeft(InstantDoubleSeries other, DoubleBinaryOperator operator) {
+        double[] result = new double[size()];
+        zipLeftRange(other, operator, result, 0, result.length);
+        return withValues(result);
+    }
+
+    private void zipLeftRange(InstantDoubleSeries other, DoubleBinaryOperator operator,
+                              double[] result, int from, int toExcl) {
+        if (from == toExcl) {
+            return;
+        }
+        PrimitiveInstantSortedArray domain2 = other.domain();
+        PrimitiveDoubleArray values2 = other.values();
+        int size2 = domain2.size();
+        double value2 = other.defaultDoubleValue();
+        values().getDoubles(from, toExcl, result, from);
+        //The merge cursor starts at the first point of operand2 not after the beginning of the range
+        int j = Math.max(0, domain2.findLE(timeMillisAt(from)));
+        for (int i = from; i < toExcl; i++) {
+            long time = timeMillisAt(i);
+            if (j < size2 && domain2.getMillis(j) <= time) {
+                do {
+                    j++;
+                } while (j < size2 && domain2.getMillis(j) <= time);
+                value2 = values2.getDouble(j - 1);
+            }
+            result[i] = operator.applyAsDouble(result[i], value2);
+        }
+    }
+
+    private InstantDoubleSeries zipInner(InstantDoubleSeries other, DoubleBinaryOperator operator) {
+        PrimitiveInstantSortedArray domain2 = other.domain();
+        PrimitiveDoubleArray values2 = other.values();
+        int size = size();
+        int size2 = domain2.size();
+        InstantSortedArray.SortedInstantArrayBuilder domainBuilder = InstantSortedArray.builder(Math.min(size, size2));
+        DoubleArray.DoubleArrayBuilder valuesBuilder = DoubleArray.builder(Math.min(size, size2));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            long time = timeMillisAt(i);
+            while (j < size2 && domain2.getMillis(j) <= time) {
+                j++;
+            }
+            if (j > 0 && domain2.getMillis(j - 1) == time) {
+                domainBuilder.addMillis(time);
+                valuesBuilder.add(operator.applyAsDouble(valueAt(i), values2.getDouble(j - 1)));
+            }
+        }
+        return new InstantDoubleSeries(name(), domainBuilder.build(), valuesBuilder.build(), defaultDoubleValue());
+    }
+
+    private InstantDoubleSeries zipOuter(InstantDoubleSeries other, DoubleBinaryOperator operator) {
+        PrimitiveInstantSortedArray domain2 = other.domain();
+        PrimitiveDoubleArray values2 = other.values();
+        int size = size();
+        int size2 = domain2.size();
+        InstantSortedArray.SortedInstantArrayBuilder domainBuilder = InstantSortedArray.builder(size + size2);
+        DoubleArray.DoubleArrayBuilder valuesBuilder = DoubleArray.builder(size + size2);
+        double defaultValue1 = defaultDoubleValue();
+        double value2 = other.defaultDoubleValue();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < size2) {
+            if (i < size && (j >= size2 || timeMillisAt(i) <= domain2.getMillis(j))) {
+                //A point of this series, the points of operand2 up to the same time are consumed
+                long time = timeMillisAt(i);
+                if (j < size2 && domain2.getMillis(j) <= time) {
+                    do {
+                        j++;
+                    } while (j < size2 && domain2.getMillis(j) <= time);
+                    value2 = values2.getDouble(j - 1);
+                }
+                domainBuilder.addMillis(time);
+                valuesBuilder.add(operator.applyAsDouble(valueAt(i), value2));
+                i++;
+            } else {
+                //A point present in operand2 only, duplicates are collapsed into the last one
+                long time = domain2.getMillis(j);
+                do {
+                    j++;
+                } while (j < size2 && domain2.getMillis(j) == time);
+                value2 = values2.getDouble(j - 1);
+                double value1 = i > 0 ? valueAt(i - 1) : defaultValue1;
+                domainBuilder.addMillis(time);
+                valuesBuilder.add(operator.applyAsDouble(value1, value2));
+            }
+        }
+        return new InstantDoubleSeries(name(), domainBuilder.build(), valuesBuilder.build(), defaultValue1);
+    }
+
+    public InstantDoubleSeries zip(PrimitiveDoubleArray operand2, DoubleBinaryOperator operator) {
+        int size = size();
+        if (size != operand2.size()) {
+            throw new IllegalArgumentException(size + "!=" + operand2.size());
+        }
+        double[] result = new double[size];
+        zipRange(operand2, operator, result, 0, size);
+        return withValues(result);
+    }
+
+    /**
+     * Same as {@link #zip(PrimitiveDoubleArray, DoubleBinaryOperator)}, but large series are split
+     * into chunks processed in parallel. The operator must be stateless.
+     */
+    public InstantDoubleSeries zipParallel(PrimitiveDoubleArray operand2, DoubleBinaryOperator operator) {
+        int size = size();
+        if (size != operand2.size()) {
+            throw new IllegalArgumentException(size + "!=" + operand2.size());
+        }
+        double[] result = new double[size];
+        ParallelUtil.forEachChunk(size, ParallelUtil.DEFAULT_THRESHOLD,
+                (from, toExcl) -> zipRange(operand2, operator, result, from, toExcl));
+        return withValues(result);
+    }
+
+    private void zipRange(PrimitiveDoubleArray operand2, DoubleBinaryOperator operator,
+                          double[] result, int from, int toExcl) {
+        values().getDoubles(from, toExcl, result, from);
+        for (int i = from; i < toExcl; i++) {
+            result[i] = operator.applyAsDouble(result[i], operand2.getDouble(i));
+        }
+    }
+
+    @Override
+    public InstantDoubleSeries mapValues(Function<? super Double, ? extends Double> mapper) {
+        return map(mapper::apply);
+    }
+
+    @Override
+    public InstantDoubleSeries zipWithValues(Function<? super Instant, ? extends Double> operand2,
+                                             BiFunction<? super Double, ? super Double, ? extends Double> operator) {
+        if (operand2 instanceof Series && ((Series<?, ?>) operand2).domain() instanceof PrimitiveInstantSortedArray) {
+            @SuppressWarnings("unchecked")
+            Series<Instant, Double> series = (Series<Instant, Double>) operand2;
+            return zip(series, Join.LEFT, operator::apply);
+        }
+        if (operand2 instanceof LongToDoubleFunction) {
+            return zip((LongToDoubleFunction) operand2, operator::apply);
+        }
+        return zip(t -> operand2.apply(Instant.ofEpochMilli(t)), operator::apply);
+    }
+
+    @Override
+    public InstantDoubleSeries zipWithValues(Array<? extends Double> operand2,
+                                             BiFunction<? super Double, ? super Double, ? extends Double> operator) {
+        @SuppressWarnings("unchecked")
+        Array<Double> array = (Array<Double>) operand2;
+        if (size() != array.size()) {
+            throw new IllegalArgumentException(size() + "!=" + array.size());
+        }
+        return zip(PrimitiveDoubleArray.of(array), operator::apply);
+    }
+
+    @Override
+    public InstantDoubleSeries mapValuesParallel(Function<? super Double, ? extends Double> mapper) {
+        return mapParallel(mapper::apply);
+    }
+
+    @Override
+    public InstantDoubleSeries zipWithValuesParallel(Function<? super Instant, ? extends Double> operand2,
+                                                     BiFunction<? super Double, ? super Double, ? extends Double> operator) {
+        if (operand2 instanceof Series) {
+            @SuppressWarnings("unchecked")
+            Series<Instant, Double> series = (Series<Instant, Double>) operand2;
+            return zipParallel(series, operator::apply);
+        }
+        return zipWithValues(operand2, operator);
+    }
+
+    @Override
+    public InstantDoubleSeries zipWithValuesParallel(Array<? extends Double> operand2,
+                                                     BiFunction<? super Double, ? super Double, ? extends Double> operator) {
+        @SuppressWarnings("unchecked")
+        Array<Double> array = (Array<Double>) operand2;
+        if (size() != array.size()) {
+            throw new IllegalArgumentException(size() + "!=" + array.size());
+        }
+        return zipParallel(PrimitiveDoubleArray.of(array), operator::apply);
+    }
+
+    protected InstantDoubleSeries withValues(double[] values) {
+        return withValues(DoubleArray.ofNoClone(values));
     }
 }
@@ -0,0 +1,37 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+/**
+ * Domain policy for combining two series.
+ */
+public enum Join {
+
+    /**
+     * The domain of the first series.
+     */
+    LEFT,
+
+    /**
+     * The time points of the first series that are also present in the domain of the second series.
+     */
+    INNER,
+
+    /**
+     * The union of the domains of both series.
+     */
+    OUTER
+}
@@ -0,0 +1,308 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.algebra.DirtyFunctions;
+import com.jmt.jseries.algebra.StatefulDoubleOperator;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only series of doubles over instants, for live data feeds.
+ * The points are stored in growable primitive columns, an append is amortized O(1).
+ * <p>
+ * Indicators registered on the live series (e.g. {@link #movingAvg(int)}) are updated incrementally
+ * on every append from the state of their {@link StatefulDoubleOperator}, instead of being recomputed
+ * from the first point as {@link com.jmt.jseries.algebra.Moving} does. An indicator registered on a non-empty
+ * series catches up with the existing points first.
+ * <p>
+ * {@link #snapshot()} returns an immutable InstantDoubleSeries of the current points without copying the columns,
+ * later appends are not visible in it. Serializing a snapshot copies just its points.
+ * <p>
+ * LiveSeries supports a single writer and any number of concurrent readers without locking.
+ * Only one thread at a time may call the mutating methods (append, appendAll, register and the indicator factories).
+ * The writer fills the columns beyond the current size and then publishes the new size with a volatile write,
+ * and the columns replaced on growth are published the same way. The readers read the size first,
+ * so they always see the points up to the published size completely written.
+ * Taking a snapshot is O(1) and never blocks the writer.
+ */
+public class LiveSeries {
+
+    public static LiveSeries create(String name) {
+        return create(name, 0.0);
+    }
+
+    public static LiveSeries create(String name, double defaultValue) {
+        return create(name, defaultValue, 16);
+    }
+
+    public static LiveSeries create(String name, double defaultValue, int capacityHint) {
+        return new LiveSeries(name, defaultValue, capacityHint);
+    }
+
+    private final String name;
+
+    private final double defaultValue;
+
+    //The fields are volatile for the readers, see the class comment
+
+    private volatile long[] millis;
+
+    private volatile double[] values;
+
+    private volatile int size;
+
+    //An array rather than a List, so that the appends do not allocate iterators
+    private volatile Indicator[] indicators = new Indicator[0];
+
+    protected LiveSeries(String name, double defaultValue, int capacityHint) {
+        if (capacityHint < 0) {
+            throw new IllegalArgumentException("" + capacityHint);
+        }
+        this.name = name;
+        this.defaultValue = defaultValue;
+        millis = new long[capacityHint];
+        values = new double[capacityHint];
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double defaultValue() {
+        return defaultValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timeMillisAt(int i) {
+        checkIndex(i, size);
+        return millis[i];
+    }
+
+    public double valueAt(int i) {
+        checkIndex(i, size);
+        return values[i];
+    }
+
+    /**
+     * The value of the last point, or the default value if the series is empty.
+     */
+    public double lastValue() {
+        int size = this.size;
+        return size == 0 ? defaultValue : values[size - 1];
+    }
+
+    /**
+     * Appends a point and updates all the indicators.
+     * The time must not be lower than the time of the last point.
+     */
+    public void append(long epochMillis, double value) {
+        int size = this.size;
+        checkOrder(epochMillis, size);
+        ensureCapacity(size + 1);
+        millis[size] = epochMillis;
+        values[size] = value;
+        for (Indicator indicator : indicators) {
+            indicator.output[size] = indicator.operator.next(value);
+        }
+        //Publication
+        this.size = size + 1;
+    }
+
+    /**
+     * Appends all the points of the series, the indicators are updated in a single bulk pass each.
+     */
+    public void appendAll(InstantDoubleSeries series) {
+        int count = series.size();
+        if (count == 0) {
+            return;
+        }
+        int size = this.size;
+        checkOrder(series.timeMillisAt(0), size);
+        ensureCapacity(size + count);
+        long[] millis = this.millis;
+        double[] values = this.values;
+        PrimitiveInstantSortedArray domain = series.domain();
+        for (int i = 0; i < count; i++) {
+            millis[size + i] = domain.getMillis(i);
+        }
+        series.values().getDoubles(0, count, values, size);
+        for (Indicator indicator : indicators) {
+            indicator.operator.apply(values, size, count, indicator.output);
+        }
+        //Publication
+        this.size = size + count;
+    }
+
+    /**
+     * Immutable view of the current points, sharing the columns without copying.
+     */
+    public InstantDoubleSeries snapshot() {
+        int size = this.size;
+        return InstantDoubleSeries.create(name, domainView(size), DoubleArray.ofNoClone(values).slice(0, size), defaultValue);
+    }
+
+    /**
+     * Registers an indicator computed by the given operator from the values of this series.
+     * The operator is applied to the existing points first, and it is owned by the indicator from now on.
+     * To resume an indicator from a checkpoint (see {@link Indicator#saveState()}), register an operator
+     * with the loaded state on a series that contains just the points after the checkpoint.
+     */
+    public Indicator register(String indicatorName, StatefulDoubleOperator operator) {
+        double[] output = new double[millis.length];
+        operator.apply(values, 0, size, output);
+        Indicator indicator = new Indicator(this, indicatorName, operator, output);
+        Indicator[] result = Arrays.copyOf(indicators, indicators.length + 1);
+        result[result.length - 1] = indicator;
+        indicators = result;
+        return indicator;
+    }
+
+    public List<Indicator> indicators() {
+        return Collections.unmodifiableList(Arrays.asList(indicators));
+    }
+
+    public Indicator movingAvg(int period) {
+        return register("MA(" + name + "," + period + ")", DirtyFunctions.movingAvgOperator(period));
+    }
+
+    public Indicator movingAvgExp(int period) {
+        return register("EMA(" + name + "," + period + ")", DirtyFunctions.movingAvgExpOperator(period));
+    }
+
+    public Indicator movingSum(int period) {
+        return register("Sum(" + name + "," + period + ")", DirtyFunctions.movingSumOperator(period));
+    }
+
+    public Indicator movingMin(int period) {
+        return register("Min(" + name + "," + period + ")", DirtyFunctions.movingMinOperator(period));
+    }
+
+    public Indicator movingMax(int period) {
+        return register("Max(" + name + "," + period + ")", DirtyFunctions.movingMaxOperator(period));
+    }
+
+    public Indicator shift(int shift) {
+        return register("Shift(" + name + "," + shift + ")", DirtyFunctions.shiftOperator(shift));
+    }
+
+    public Indicator movingQuantile(int period, double quantile) {
+        return register("Qtl(" + name + "," + period + "," + quantile + ")", DirtyFunctions.movingQuantileOperator(period, quantile, false));
+    }
+
+    /**
+     * The size must be read before the columns.
+     */
+    private PrimitiveInstantSortedArray domainView(int size) {
+        return InstantSortedArray.ofSortedMillisNoClone(millis, size);
+    }
+
+    private static void checkIndex(int i, int size) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i + " " + size);
+        }
+    }
+
+    private void checkOrder(long epochMillis, int size) {
+        if (size > 0 && epochMillis < millis[size - 1]) {
+            throw new IllegalArgumentException("The time is not in ascending order. last: " + millis[size - 1] + " appended: " + epochMillis);
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= millis.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, DoubleArray.newCapacity(millis.length));
+        //The old arrays stay untouched, the snapshots and readers may still use them.
+        //The copies are published by the volatile writes before any point beyond the old size.
+        millis = Arrays.copyOf(millis, capacity);
+        values = Arrays.copyOf(values, capacity);
+        for (Indicator indicator : indicators) {
+            indicator.output = Arrays.copyOf(indicator.output, capacity);
+        }
+    }
+
+    /**
+     * Output of a stateful operator over the values of a LiveSeries, it has the same domain.
+     */
+    public static final class Indicator {
+
+        private final LiveSeries source;
+
+        private final String name;
+
+        private final StatefulDoubleOperator operator;
+
+        private volatile double[] output;
+
+        private Indicator(LiveSeries source, String name, StatefulDoubleOperator operator, double[] output) {
+            this.source = source;
+            this.name = name;
+            this.operator = operator;
+            this.output = output;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int size() {
+            return source.size;
+        }
+
+        public double valueAt(int i) {
+            checkIndex(i, source.size);
+            return output[i];
+        }
+
+        /**
+         * The value at the last point, or the default value of the source series if it is empty.
+         */
+        public double lastValue() {
+            int size = source.size;
+            return size == 0 ? source.defaultValue : output[size - 1];
+        }
+
+        /**
+         * Checkpoint of the operator state at the last point, see {@link StatefulDoubleOperator#saveState()}.
+         * Like the appends, it must be called by the writer thread.
+         */
+        public byte[] saveState() {
+            return operator.saveState();
+        }
+
+        /**
+         * Immutable view of the current values, sharing the columns without copying.
+         */
+        public InstantDoubleSeries snapshot() {
+            int size = source.size;
+            return InstantDoubleSeries.create(name, source.domainView(size), DoubleArray.ofNoClone(output).slice(0, size), source.defaultValue);
+        }
+    }
+}
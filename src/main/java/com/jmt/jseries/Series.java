@@ -17,6 +17,7 @@ package com.jmt.jseries;
 
 import com.jmt.jseries.array.Array;
 import com.jmt.jseries.array.ArrayBuilder;
+import com.jmt.jseries.array.ParallelUtil;
 import com.jmt.jseries.array.SortedArray;
 
 import java.io.Serializable;
@@ -30,6 +31,13 @@ public interface Series<T extends Comparable<T>, R> extends Function<T, R>, Seri
 
     Series<T, R> withName(String name);
 
+    /**
+     * Creates new Series with the same name, domain and default value, and the given values.
+     */
+    default Series<T, R> withValues(Array<R> values) {
+        return zipWithValues(values, (value, newValue) -> newValue);
+    }
+
     SortedArray<T> domain();
 
     default T domain(int i) {
@@ -73,6 +81,13 @@ public interface Series<T extends Comparable<T>, R> extends Function<T, R>, Seri
 
     R defaultValue();
 
+    /**
+     * Creates a new cursor for lookups with non-decreasing keys, see {@link SeriesCursor}.
+     */
+    default SeriesCursor<T, R> cursor() {
+        return new SeriesCursor<>(this);
+    }
+
     default int size() {
         return domain().size();
     }
@@ -81,6 +96,43 @@ public interface Series<T extends Comparable<T>, R> extends Function<T, R>, Seri
         return size() == 0;
     }
 
+    /**
+     * Returns the points from..toExcl. The arrays are views sharing the data of this series
+     * where the implementation allows it.
+     */
+    default Series<T, R> slice(int from, int toExcl) {
+        return new SeriesImpl<>(name(), domain().slice(from, toExcl), values().slice(from, toExcl), defaultValue());
+    }
+
+    /**
+     * Returns the points with time in the range from (inclusive) .. toExcl (exclusive).
+     */
+    default Series<T, R> slice(T from, T toExcl) {
+        int fromIndex = findLT(from) + 1;
+        int toIndex = Math.max(fromIndex, findLT(toExcl) + 1);
+        return slice(fromIndex, toIndex);
+    }
+
+    /**
+     * Samples this series as a total function at every point of the target domain,
+     * i.e. the values are forward-filled. Both domains are walked in a single pass.
+     * The result has the target domain, and the name and default value of this series.
+     */
+    default Series<T, R> reindex(SortedArray<T> target) {
+        int size = size();
+        int targetSize = target.size();
+        ArrayBuilder<R, ? extends Array<R>> valuesBuilder = values().newBuilder(targetSize);
+        int j = 0;
+        for (int i = 0; i < targetSize; i++) {
+            T time = target.get(i);
+            while (j < size && domain(j).compareTo(time) <= 0) {
+                j++;
+            }
+            valuesBuilder.add(j > 0 ? value(j - 1) : defaultValue());
+        }
+        return new SeriesImpl<>(name(), target, valuesBuilder.build(), defaultValue());
+    }
+
     default Series<T, R> mapValues(Function<? super R, ? extends R> mapper) {
         return mapValues(values().newBuilder(size()), defaultValue(), mapper);
     }
@@ -93,4 +145,32 @@ public interface Series<T extends Comparable<T>, R> extends Function<T, R>, Seri
 
     Series<T, R> zipWithValues(Array<? extends R> operand2,
                                BiFunction<? super R, ? super R, ? extends R> operator);
+
+    /**
+     * Same as {@link #mapValues(Function)}, but large series are split into chunks
+     * mapped in parallel, see {@link ParallelUtil}. The mapper must be stateless.
+     * By default, it is the same as the sequential version.
+     */
+    default Series<T, R> mapValuesParallel(Function<? super R, ? extends R> mapper) {
+        return mapValues(mapper);
+    }
+
+    /**
+     * Same as {@link #zipWithValues(Function, BiFunction)}, but large series are processed in parallel.
+     * The operator must be stateless. Only an operand2 which is a Series is evaluated in parallel,
+     * any other function may be dirty and is evaluated sequentially.
+     */
+    default Series<T, R> zipWithValuesParallel(Function<? super T, ? extends R> operand2,
+                                               BiFunction<? super R, ? super R, ? extends R> operator) {
+        return zipWithValues(operand2, operator);
+    }
+
+    /**
+     * Same as {@link #zipWithValues(Array, BiFunction)}, but large series are processed in parallel.
+     * The operator must be stateless.
+     */
+    default Series<T, R> zipWithValuesParallel(Array<? extends R> operand2,
+                                               BiFunction<? super R, ? super R, ? extends R> operator) {
+        return zipWithValues(operand2, operator);
+    }
 }
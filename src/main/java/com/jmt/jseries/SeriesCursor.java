@@ -0,0 +1,51 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import java.util.function.Function;
+
+/**
+ * Accessor to a Series as a total function, optimized for lookups with non-decreasing keys.
+ * It remembers the position of the last lookup and the next search gallops forward from it,
+ * so a sequence of lookups with increasing keys takes amortized O(1) per lookup for dense keys.
+ * A lookup with a lower key falls back to the full binary search.
+ * <p>
+ * The cursor is stateful and not thread-safe, every thread needs its own one.
+ * In case of duplicate time points, it returns the value of the last one.
+ */
+public class SeriesCursor<T extends Comparable<T>, R> implements Function<T, R> {
+
+    private final Series<T, R> series;
+
+    private int position = -1;
+
+    public SeriesCursor(Series<T, R> series) {
+        this.series = series;
+    }
+
+    @Override
+    public R apply(T x) {
+        position = series.domain().findLE(x, position);
+        return position < 0 ? series.defaultValue() : series.value(position);
+    }
+
+    /**
+     * The index of the point found by the last lookup, or -1.
+     */
+    public int position() {
+        return position;
+    }
+}
@@ -17,10 +17,15 @@ package com.jmt.jseries;
 
 import com.jmt.jseries.array.Array;
 import com.jmt.jseries.array.ArrayBuilder;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.GenericArray;
+import com.jmt.jseries.array.ParallelUtil;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
 import com.jmt.jseries.array.SortedArray;
 
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 public class SeriesImpl<T extends Comparable<T>, R> implements Series<T, R> {
 
@@ -74,6 +79,11 @@ public class SeriesImpl<T extends Comparable<T>, R> implements Series<T, R> {
         return new SeriesImpl<>(name, domain, values, defaultValue);
     }
 
+    @Override
+    public Series<T, R> withValues(Array<R> values) {
+        return new SeriesImpl<>(name, domain, values, defaultValue);
+    }
+
     @Override
     public R value(int i) {
         return values.get(i);
@@ -94,9 +104,16 @@ public class SeriesImpl<T extends Comparable<T>, R> implements Series<T, R> {
     public Series<T, R> zipWithValues(Function<? super T, ? extends R> operand2,
                                       BiFunction<? super R, ? super R, ? extends R> operator) {
         int size = size();
+        //The domain is sorted, so a series operand is accessed with a cursor instead of a full search for every point
+        Function<? super T, ? extends R> function = operand2;
+        if (operand2 instanceof Series) {
+            @SuppressWarnings("unchecked")
+            Series<T, ? extends R> series = (Series<T, ? extends R>) operand2;
+            function = series.cursor();
+        }
         ArrayBuilder<R, ? extends Array<R>> valuesBuilder = values.newBuilder(size);
         for (int i = 0; i < size; i++) {
-            valuesBuilder.add(operator.apply(value(i), operand2.apply(domain(i))));
+            valuesBuilder.add(operator.apply(value(i), function.apply(domain(i))));
         }
         return new SeriesImpl<>(name, domain, valuesBuilder.build(), defaultValue);
     }
@@ -114,4 +131,53 @@ public class SeriesImpl<T extends Comparable<T>, R> implements Series<T, R> {
         }
         return new SeriesImpl<>(name, domain, valuesBuilder.build(), defaultValue);
     }
+
+    @Override
+    public Series<T, R> mapValuesParallel(Function<? super R, ? extends R> mapper) {
+        return withValues(computeParallel(i -> mapper.apply(value(i))));
+    }
+
+    @Override
+    public Series<T, R> zipWithValuesParallel(Function<? super T, ? extends R> operand2,
+                                              BiFunction<? super R, ? super R, ? extends R> operator) {
+        if (!(operand2 instanceof Series)) {
+            return zipWithValues(operand2, operator);
+        }
+        return withValues(computeParallel(i -> operator.apply(value(i), operand2.apply(domain(i)))));
+    }
+
+    @Override
+    public Series<T, R> zipWithValuesParallel(Array<? extends R> operand2,
+                                              BiFunction<? super R, ? super R, ? extends R> operator) {
+        int size = size();
+        if (size != operand2.size()) {
+            throw new IllegalArgumentException(size + "!=" + operand2.size());
+        }
+        return withValues(computeParallel(i -> operator.apply(value(i), operand2.get(i))));
+    }
+
+    /**
+     * Computes the elements of a new values array in parallel chunks, each writing directly into
+     * a preallocated array. It is a primitive double[] if the values of this series are primitive.
+     */
+    @SuppressWarnings("unchecked")
+    private Array<R> computeParallel(IntFunction<? extends R> element) {
+        int size = size();
+        if (values instanceof PrimitiveDoubleArray) {
+            double[] result = new double[size];
+            ParallelUtil.forEachChunk(size, ParallelUtil.DEFAULT_THRESHOLD, (from, toExcl) -> {
+                for (int i = from; i < toExcl; i++) {
+                    result[i] = (Double) element.apply(i);
+                }
+            });
+            return (Array<R>) DoubleArray.ofNoClone(result);
+        }
+        Object[] result = new Object[size];
+        ParallelUtil.forEachChunk(size, ParallelUtil.DEFAULT_THRESHOLD, (from, toExcl) -> {
+            for (int i = from; i < toExcl; i++) {
+                result[i] = element.apply(i);
+            }
+        });
+        return GenericArray.ofNoClone((R[]) result);
+    }
 }
@@ -15,115 +15,153 @@
 */
 package com.jmt.jseries.algebra;
 
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Join;
 import com.jmt.jseries.Series;
 import com.jmt.jseries.array.Array;
 
+import java.time.Instant;
 import java.util.function.Function;
 
 public class Binary {
 
     public static <T extends Comparable<T>> Series<T, Double> add(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> x + op2)
+        return op1.mapValuesParallel(x -> x + op2)
                 .withName("Add(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> add(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x + y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x + y)
                 .withName("Add(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> add(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x + y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x + y)
+                .withName("Add(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries add(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, (x, y) -> x + y)
                 .withName("Add(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sub(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> x - op2)
+        return op1.mapValuesParallel(x -> x - op2)
                 .withName("Sub(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sub(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x - y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x - y)
                 .withName("Sub(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sub(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x - y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x - y)
+                .withName("Sub(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries sub(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, (x, y) -> x - y)
                 .withName("Sub(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> mul(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> x * op2)
+        return op1.mapValuesParallel(x -> x * op2)
                 .withName("Mul(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> mul(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x * y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x * y)
                 .withName("Mul(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> mul(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x * y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x * y)
+                .withName("Mul(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries mul(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, (x, y) -> x * y)
                 .withName("Mul(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> x / op2)
+        return op1.mapValuesParallel(x -> x / op2)
                 .withName("Div(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x / y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x / y)
                 .withName("Div(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> x / y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> x / y)
+                .withName("Div(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries div(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, (x, y) -> x / y)
                 .withName("Div(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div0(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> op2 == 0.0 ? 0.0 : x / op2)
+        return op1.mapValuesParallel(x -> op2 == 0.0 ? 0.0 : x / op2)
                 .withName("Div0(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div0(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> y == 0.0 ? 0.0 : x / y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> y == 0.0 ? 0.0 : x / y)
                 .withName("Div0(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> div0(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, (x, y) -> y == 0.0 ? 0.0 : x / y)
+        return op1.zipWithValuesParallel(op2, (x, y) -> y == 0.0 ? 0.0 : x / y)
+                .withName("Div0(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries div0(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, (x, y) -> y == 0.0 ? 0.0 : x / y)
                 .withName("Div0(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> Math.max(x, op2))
+        return op1.mapValuesParallel(x -> Math.max(x, op2))
                 .withName("Max(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, Math::max)
+        return op1.zipWithValuesParallel(op2, Math::max)
                 .withName("Max(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, Math::max)
+        return op1.zipWithValuesParallel(op2, Math::max)
+                .withName("Max(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries max(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, Math::max)
                 .withName("Max(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> op1, double op2) {
-        return op1.mapValues(x -> Math.min(x, op2))
+        return op1.mapValuesParallel(x -> Math.min(x, op2))
                 .withName("Min(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> op1, Function<T, Double> op2) {
-        return op1.zipWithValues(op2, Math::min)
+        return op1.zipWithValuesParallel(op2, Math::min)
                 .withName("Min(" + op1.name() + "," + op2 + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> op1, Array<Double> op2) {
-        return op1.zipWithValues(op2, Math::min)
+        return op1.zipWithValuesParallel(op2, Math::min)
+                .withName("Min(" + op1.name() + "," + op2 + ")");
+    }
+
+    public static InstantDoubleSeries min(Series<Instant, Double> op1, Series<Instant, Double> op2, Join join) {
+        return InstantDoubleSeries.of(op1).zip(op2, join, Math::min)
                 .withName("Min(" + op1.name() + "," + op2 + ")");
     }
 }
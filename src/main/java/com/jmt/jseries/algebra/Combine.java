@@ -0,0 +1,165 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operations combining many series at once.
+ */
+public class Combine {
+
+    public static InstantDoubleSeries sum(List<? extends Series<Instant, Double>> series) {
+        double[] weights = new double[series.size()];
+        Arrays.fill(weights, 1.0);
+        return weightedSum(series, weights).withName("Sum(" + series.size() + " series)");
+    }
+
+    /**
+     * Weighted sum of the given series, computed in a single pass without any intermediate series.
+     * The domain of the result is the union of all the domains. At every time point,
+     * every series contributes with its last known value (or its default value before its first point).
+     * The default value of the result is the weighted sum of the default values.
+     * The domains are merged using a heap, and the current contributions are kept in a pairwise sum tree,
+     * where a new value updates the path from its leaf to the root, so the cost is O(n log N)
+     * for n input points and N series. The nodes are always recomputed from their children
+     * (rather than patching a running total), so a NaN, an infinity or a large value
+     * does not affect the outputs after it has been replaced.
+     */
+    public static InstantDoubleSeries weightedSum(List<? extends Series<Instant, Double>> series, double[] weights) {
+
+        int count = series.size();
+        if (count != weights.length) {
+            throw new IllegalArgumentException(count + "!=" + weights.length);
+        }
+
+        PrimitiveInstantSortedArray[] domains = new PrimitiveInstantSortedArray[count];
+        PrimitiveDoubleArray[] values = new PrimitiveDoubleArray[count];
+        //Leaf k of the sum tree is at leaves + k, the parent of node i is at i / 2, the root at 1
+        int leaves = Integer.highestOneBit(Math.max(count, 1) * 2 - 1);
+        double[] tree = new double[2 * leaves];
+        int[] positions = new int[count];
+        int[] heap = new int[count];
+        int heapSize = 0;
+        int totalSize = 0;
+
+        for (int k = 0; k < count; k++) {
+            InstantDoubleSeries s = InstantDoubleSeries.of(series.get(k));
+            domains[k] = s.domain();
+            values[k] = s.values();
+            tree[leaves + k] = weights[k] * s.defaultDoubleValue();
+            totalSize += s.size();
+            if (!s.isEmpty()) {
+                heap[heapSize] = k;
+                siftUp(heap, heapSize, domains, positions);
+                heapSize++;
+            }
+        }
+        for (int i = leaves - 1; i > 0; i--) {
+            tree[i] = tree[2 * i] + tree[2 * i + 1];
+        }
+        double defaultValue = count == 0 ? 0.0 : tree[1];
+
+        InstantSortedArray.SortedInstantArrayBuilder domainBuilder = InstantSortedArray.builder(Math.min(totalSize, 1024));
+        DoubleArray.DoubleArrayBuilder valuesBuilder = DoubleArray.builder(Math.min(totalSize, 1024));
+
+        while (heapSize > 0) {
+            long time = domains[heap[0]].getMillis(positions[heap[0]]);
+            while (heapSize > 0 && domains[heap[0]].getMillis(positions[heap[0]]) == time) {
+                int k = heap[0];
+                PrimitiveInstantSortedArray domain = domains[k];
+                int size = domain.size();
+                int position = positions[k];
+                do {
+                    position++;
+                } while (position < size && domain.getMillis(position) == time);
+                positions[k] = position;
+
+                update(tree, leaves + k, weights[k] * values[k].getDouble(position - 1));
+
+                if (position < size) {
+                    siftDown(heap, heapSize, domains, positions);
+                } else {
+                    heapSize--;
+                    heap[0] = heap[heapSize];
+                    siftDown(heap, heapSize, domains, positions);
+                }
+            }
+            domainBuilder.addMillis(time);
+            valuesBuilder.add(tree[1]);
+        }
+
+        return InstantDoubleSeries.create("WeightedSum(" + count + " series)",
+                domainBuilder.build(), valuesBuilder.build(), defaultValue);
+    }
+
+    private static void update(double[] tree, int leaf, double value) {
+        tree[leaf] = value;
+        for (int i = leaf / 2; i > 0; i /= 2) {
+            tree[i] = tree[2 * i] + tree[2 * i + 1];
+        }
+    }
+
+    private static long key(int k, PrimitiveInstantSortedArray[] domains, int[] positions) {
+        return domains[k].getMillis(positions[k]);
+    }
+
+    private static void siftUp(int[] heap, int index, PrimitiveInstantSortedArray[] domains, int[] positions) {
+        int k = heap[index];
+        long key = key(k, domains, positions);
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (key(heap[parent], domains, positions) <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = k;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, PrimitiveInstantSortedArray[] domains, int[] positions) {
+        if (heapSize == 0) {
+            return;
+        }
+        int index = 0;
+        int k = heap[0];
+        long key = key(k, domains, positions);
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < heapSize && key(heap[right], domains, positions) < key(heap[child], domains, positions)) {
+                child = right;
+            }
+            if (key <= key(heap[child], domains, positions)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = k;
+    }
+}
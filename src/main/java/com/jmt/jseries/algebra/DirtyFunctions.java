@@ -15,267 +15,689 @@
 */
 package com.jmt.jseries.algebra;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import com.jmt.jseries.array.Array;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.function.Function;
 
+/**
+ * Stateful moving-window functions, in two flavours:
+ * boxed Function&lt;Double, Double&gt; (e.g. {@link #movingAvg(int)}) for use with the generic Series API,
+ * and primitive {@link StatefulDoubleOperator} (e.g. {@link #movingAvgOperator(int)}) for unboxed and bulk processing.
+ * The functions are adapters of the operators, so both flavours give the same results.
+ */
 public class DirtyFunctions {
 
     public static Function<Double, Double> movingAvg(int period) {
+        return movingAvgOperator(period).asFunction();
+    }
 
-        if (period < 1) {
-            throw new IllegalArgumentException("" + period);
-        }
+    public static Function<Double, Double> movingAvgExp(int period) {
+        return movingAvgExpOperator(period).asFunction();
+    }
 
-        if (period == 1) {
-            return Function.identity();
-        }
+    public static Function<Double, Double> movingSum(int period) {
+        return movingSumOperator(period).asFunction();
+    }
 
-        return new Function<Double, Double>() {
+    public static Function<Double, Double> movingMin(int period) {
+        return movingMinOperator(period).asFunction();
+    }
 
-            private final DoubleRingBuffer history = new DoubleRingBuffer(period + 1);
-            private double prevResult;
+    public static Function<Double, Double> movingMax(int period) {
+        return movingMaxOperator(period).asFunction();
+    }
 
-            @Override
-            public Double apply(Double d) {
-                double result;
-                history.add(d);
-                if (history.size() <= period) {
-                    double sum = 0.0;
-                    for (int i = 0; i < history.size(); i++) {
-                        sum += history.get(i);
-                    }
-                    result = sum / history.size();
-                } else {
-                    double oldItem = history.first() / period;
-                    double newItem = history.last() / period;
-                    result = prevResult - oldItem + newItem;
-                }
-                prevResult = result;
-                return result;
-            }
-        };
+    public static Function<Double, Double> shift(int period) {
+        return shiftOperator(period).asFunction();
     }
 
-    public static Function<Double, Double> movingAvgExp(int period) {
+    /**
+     * Moving quantile, O(log period) per step.
+     * No interpolation is performed, the value of rank round(quantile * n) (at least 1) in the window is returned.
+     * Hence the result can be quite imprecise for small a window size or a very uneven data distribution.
+     * @param period window size
+     * @param quantile 0..1
+     * @return The moving quantile function
+     */
+    public static Function<Double, Double> movingQuantile(int period, double quantile) {
+        return movingQuantile(period, quantile, false);
+    }
 
+    /**
+     * Moving quantile, O(log period) per step.
+     * The values in the window are kept in an order statistic tree, so that the expired value
+     * can be removed and the value of any rank selected in logarithmic time.
+     * @param period window size
+     * @param quantile 0..1
+     * @param interpolate if true, the result is linearly interpolated between the two closest ranks
+     *                    (the position is quantile * (n - 1), as in the default R and Numpy method),
+     *                    otherwise the value of rank round(quantile * n) (at least 1) is returned
+     * @return The moving quantile function
+     */
+    public static Function<Double, Double> movingQuantile(int period, double quantile, boolean interpolate) {
+        return movingQuantileOperator(period, quantile, interpolate).asFunction();
+    }
+
+    /**
+     * Approximate moving quantile in memory independent of the window size (about 8 / rankError^2 values),
+     * see {@link SlidingQuantileSketch}.
+     * Useful for very large windows, where even the exact O(log period) implementation keeps too much data.
+     * If the window is too small for the given error to save anything, the exact implementation is used.
+     * @param period window size
+     * @param quantile 0..1
+     * @param rankError maximum error of the rank of the result, relative to the window size, e.g. 0.01
+     * @return The moving quantile function
+     */
+    public static Function<Double, Double> movingQuantileApprox(int period, double quantile, double rankError) {
+        return movingQuantileApproxOperator(period, quantile, rankError).asFunction();
+    }
+
+    /**
+     * Moving minimum of the whole array, computed in a single pass without boxing.
+     */
+    public static DoubleArray movingMin(Array<Double> values, int period) {
+        return apply(values, movingMinOperator(period));
+    }
+
+    /**
+     * Moving maximum of the whole array, computed in a single pass without boxing.
+     */
+    public static DoubleArray movingMax(Array<Double> values, int period) {
+        return apply(values, movingMaxOperator(period));
+    }
+
+    /**
+     * Applies the operator to all the values in a single bulk pass.
+     * The input is copied into the result, which is then transformed in place.
+     */
+    public static DoubleArray apply(Array<Double> values, StatefulDoubleOperator operator) {
+        double[] result = PrimitiveDoubleArray.of(values).toDoubleArray();
+        operator.apply(result, 0, result.length, result);
+        return DoubleArray.ofNoClone(result);
+    }
+
+    public static StatefulDoubleOperator movingAvgOperator(int period) {
         if (period < 1) {
             throw new IllegalArgumentException("" + period);
         }
+        return period == 1 ? identity(AVG, period) : new MovingAvg(period);
+    }
 
-        if (period == 1) {
-            return Function.identity();
+    public static StatefulDoubleOperator movingAvgExpOperator(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
         }
+        return period == 1 ? identity(AVG_EXP, period) : new MovingAvgExp(period);
+    }
 
-        return new Function<Double, Double>() {
+    /**
+     * Exponential moving average that continues a previous computation, whose last result was lastResult.
+     */
+    public static StatefulDoubleOperator movingAvgExpOperator(int period, double lastResult) {
+        StatefulDoubleOperator operator = movingAvgExpOperator(period);
+        if (operator instanceof MovingAvgExp) {
+            MovingAvgExp ema = (MovingAvgExp) operator;
+            ema.firstCall = false;
+            ema.prevResult = lastResult;
+        }
+        return operator;
+    }
 
-            private final double smoothingFactor = 2.0 / (period + 1.0);
-            private double prevResult;
-            private boolean firstCall = true;
+    public static StatefulDoubleOperator movingSumOperator(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
+        }
+        return period == 1 ? identity(SUM, period) : new MovingSum(period);
+    }
 
-            @Override
-            public Double apply(Double d) {
-                double result;
-                if (firstCall) {
-                    firstCall = false;
-                    result = d;
-                } else {
-                    result = d * smoothingFactor + prevResult * (1.0 - smoothingFactor);
-                }
-                prevResult = result;
-                return result;
-            }
-        };
+    public static StatefulDoubleOperator movingMinOperator(int period) {
+        return movingMinOrMaxOperator(period, false);
     }
 
-    public static Function<Double, Double> movingSum(int period) {
+    public static StatefulDoubleOperator movingMaxOperator(int period) {
+        return movingMinOrMaxOperator(period, true);
+    }
 
+    private static StatefulDoubleOperator movingMinOrMaxOperator(int period, boolean max) {
         if (period < 1) {
             throw new IllegalArgumentException("" + period);
         }
+        return period == 1 ? identity(max ? MAX : MIN, period) : new MinMaxDeque(period, max);
+    }
 
-        if (period == 1) {
-            return Function.identity();
+    public static StatefulDoubleOperator shiftOperator(int period) {
+        if (period < 0) {
+            throw new IllegalArgumentException("" + period);
+        }
+        return period == 0 ? identity(SHIFT, period) : new Shift(period);
+    }
+
+    /**
+     * Primitive version of {@link #movingQuantile(int, double, boolean)}.
+     */
+    public static StatefulDoubleOperator movingQuantileOperator(int period, double quantile, boolean interpolate) {
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
+        }
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("" + quantile);
         }
+        return period == 1 ? identity(QUANTILE, period) : new MovingQuantile(period, quantile, interpolate);
+    }
 
-        return new Function<Double, Double>() {
+    /**
+     * Primitive version of {@link #movingQuantileApprox(int, double, double)}.
+     */
+    public static StatefulDoubleOperator movingQuantileApproxOperator(int period, double quantile, double rankError) {
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
+        }
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("" + quantile);
+        }
+        if (rankError <= 0 || rankError >= 1) {
+            throw new IllegalArgumentException("" + rankError);
+        }
+        if (rankError * period < 4) {
+            return movingQuantileOperator(period, quantile, false);
+        }
+        return new MovingQuantileApprox(period, quantile, rankError);
+    }
 
-            private final DoubleRingBuffer history = new DoubleRingBuffer(period + 1);
-            private double prevResult = 0.0;
+    //Checkpoints start with the format version, the kind of the operator and its period
 
-            @Override
-            public Double apply(Double d) {
-                double result;
-                history.add(d);
-                if (history.size() <= period) {
-                    result = prevResult + history.last();
-                } else {
-                    result = prevResult + history.last() - history.first();
-                }
-                prevResult = result;
-                return result;
-            }
-        };
+    private static final int STATE_VERSION = 1;
+
+    static final int IDENTITY = 0;
+    private static final int AVG = 1;
+    private static final int AVG_EXP = 2;
+    private static final int SUM = 3;
+    private static final int MIN = 4;
+    private static final int MAX = 5;
+    private static final int SHIFT = 6;
+    private static final int QUANTILE = 7;
+    private static final int QUANTILE_APPROX = 8;
+
+    private static void writeHeader(DataOutput out, int kind, int period) throws IOException {
+        out.writeByte(STATE_VERSION);
+        out.writeByte(kind);
+        out.writeInt(period);
     }
 
-    public static Function<Double, Double> movingMin(int period) {
-        return movingMinOrMax(period, false);
+    private static void readHeader(DataInput in, int kind, int period) throws IOException {
+        int version = in.readByte();
+        if (version != STATE_VERSION) {
+            throw new IOException("Unsupported state version: " + version);
+        }
+        int stateKind = in.readByte();
+        int statePeriod = in.readInt();
+        if (stateKind != kind || statePeriod != period) {
+            throw new IOException("Incompatible state, kind: " + stateKind + " period: " + statePeriod
+                    + " expected kind: " + kind + " period: " + period);
+        }
     }
 
-    public static Function<Double, Double> movingMax(int period) {
-        return movingMinOrMax(period, true);
+    /**
+     * The identity, which stands for an operator of the given kind and period that does not change the values.
+     * Its checkpoint is just the header, so that it is loaded only by the same operator.
+     */
+    static StatefulDoubleOperator identity(int kind, int period) {
+        return new Identity(kind, period);
     }
 
-    private static Function<Double, Double> movingMinOrMax(int period, boolean max) {
+    private static final class Identity implements StatefulDoubleOperator {
 
-        if (period < 1) {
-            throw new IllegalArgumentException("" + period);
+        private final int kind;
+        private final int period;
+
+        private Identity(int kind, int period) {
+            this.kind = kind;
+            this.period = period;
+        }
+
+        @Override
+        public double next(double x) {
+            return x;
         }
 
-        if (period == 1) {
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            if (in != out) {
+                System.arraycopy(in, off, out, off, len);
+            }
+        }
+
+        @Override
+        public Function<Double, Double> asFunction() {
             return Function.identity();
         }
 
-        return new Function<Double, Double>() {
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, kind, period);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, kind, period);
+        }
+    }
 
-            private final DoubleRingBuffer history = new DoubleRingBuffer(period);
+    //The bulk loops are repeated in every operator, so that the JIT compiles each of them
+    //with a monomorphic call of next(), which can be inlined
 
-            private final Comparator<Double> comparator = max ?
-                    Comparator.<Double>naturalOrder().reversed() :
-                    Comparator.<Double>naturalOrder();
+    private static final class MovingAvg implements StatefulDoubleOperator {
 
-            private final PriorityQueue<Double> ordered = new PriorityQueue<>(period, comparator);
+        private final int period;
+        private final DoubleRingBuffer history;
+        private double prevResult;
 
-            @Override
-            public Double apply(Double d) {
-                if (history.size() == period) {
-                    ordered.remove(history.first());
+        private MovingAvg(int period) {
+            this.period = period;
+            history = new DoubleRingBuffer(period + 1);
+        }
+
+        @Override
+        public double next(double d) {
+            double result;
+            history.add(d);
+            if (history.size() <= period) {
+                double sum = 0.0;
+                for (int i = 0; i < history.size(); i++) {
+                    sum += history.get(i);
                 }
-                history.add(d);
-                ordered.add(d);
-                return ordered.peek();
+                result = sum / history.size();
+            } else {
+                double oldItem = history.first() / period;
+                double newItem = history.last() / period;
+                result = prevResult - oldItem + newItem;
             }
-        };
+            prevResult = result;
+            return result;
+        }
+
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
+            }
+        }
+
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, AVG, period);
+            history.saveState(out);
+            out.writeDouble(prevResult);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, AVG, period);
+            double[] newHistory = history.readState(in);
+            double newPrevResult = in.readDouble();
+            history.load(newHistory);
+            prevResult = newPrevResult;
+        }
     }
 
-    public static Function<Double, Double> shift(int period) {
-        if (period < 0) {
-            throw new IllegalArgumentException("" + period);
+    private static final class MovingAvgExp implements StatefulDoubleOperator {
+
+        private final int period;
+        private final double smoothingFactor;
+        private double prevResult;
+        private boolean firstCall = true;
+
+        private MovingAvgExp(int period) {
+            this.period = period;
+            smoothingFactor = 2.0 / (period + 1.0);
         }
-        if (period == 0) {
-            return Function.identity();
+
+        @Override
+        public double next(double d) {
+            double result;
+            if (firstCall) {
+                firstCall = false;
+                result = d;
+            } else {
+                result = d * smoothingFactor + prevResult * (1.0 - smoothingFactor);
+            }
+            prevResult = result;
+            return result;
         }
-        if (period == 1) {
-            return new Function<Double, Double>() {
-
-                private boolean firstCall = true;
-                private double prev;
-
-                @Override
-                public Double apply(Double d) {
-                    if (firstCall) {
-                        firstCall = false;
-                        prev = d;
-                        return d;
-                    } else {
-                        double result = prev;
-                        prev = d;
-                        return result;
-                    }
-                }
-            };
-        } else {
-            return new Function<Double, Double>() {
-
-                private final DoubleRingBuffer history = new DoubleRingBuffer(period);
-
-                @Override
-                public Double apply(Double d) {
-                    if (history.isEmpty()) {
-                        history.add(d);
-                        return d;
-                    } else {
-                        double result = history.first();
-                        history.add(d);
-                        return result;
-                    }
-                }
-            };
+
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            int i = off;
+            int end = off + len;
+            if (firstCall && i < end) {
+                out[i] = next(in[i]);
+                i++;
+            }
+            //The recurrence is kept in local variables
+            double result = prevResult;
+            double smoothing = smoothingFactor;
+            double decay = 1.0 - smoothingFactor;
+            for (; i < end; i++) {
+                result = in[i] * smoothing + result * decay;
+                out[i] = result;
+            }
+            prevResult = result;
+        }
+
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, AVG_EXP, period);
+            out.writeBoolean(firstCall);
+            out.writeDouble(prevResult);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, AVG_EXP, period);
+            boolean newFirstCall = in.readBoolean();
+            double newPrevResult = in.readDouble();
+            firstCall = newFirstCall;
+            prevResult = newPrevResult;
+        }
+    }
+
+    private static final class MovingSum implements StatefulDoubleOperator {
+
+        private final int period;
+        private final DoubleRingBuffer history;
+        private double prevResult = 0.0;
+
+        private MovingSum(int period) {
+            this.period = period;
+            history = new DoubleRingBuffer(period + 1);
+        }
+
+        @Override
+        public double next(double d) {
+            double result;
+            history.add(d);
+            if (history.size() <= period) {
+                result = prevResult + history.last();
+            } else {
+                result = prevResult + history.last() - history.first();
+            }
+            prevResult = result;
+            return result;
+        }
+
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
+            }
+        }
+
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, SUM, period);
+            history.saveState(out);
+            out.writeDouble(prevResult);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, SUM, period);
+            double[] newHistory = history.readState(in);
+            double newPrevResult = in.readDouble();
+            history.load(newHistory);
+            prevResult = newPrevResult;
         }
     }
 
     /**
-     * Scalable quantile implementation using two heaps.
-     * No interpolation is performed, the nearest lower value from the sample is returned.
-     * Hence the result can be quite imprecise for small a window size or a very uneven data distribution.
-     * @param period window size
-     * @param quantile 0..1
-     * @return The moving quantile function
+     * Monotonic deque of the candidates for the moving min/max, O(1) amortized per step.
+     * The values are ordered from the current extreme at the head to the newest value at the tail,
+     * every value dominated by a newer one is dropped, and the head is dropped when it leaves the window.
+     * The order is the same as in Double.compare, i.e. NaN is greater than any other value.
      */
-    public static Function<Double, Double> movingQuantile(int period, double quantile) {
+    private static final class MinMaxDeque implements StatefulDoubleOperator {
+
+        private final int period;
+        private final boolean max;
+        private final double[] values;
+        private final long[] positions;
+
+        private int head;
+        private int size;
+        private long position;
+
+        private MinMaxDeque(int period, boolean max) {
+            this.period = period;
+            this.max = max;
+            values = new double[period];
+            positions = new long[period];
+        }
 
-        if (period < 1) {
-            throw new IllegalArgumentException("" + period);
+        @Override
+        public double next(double d) {
+
+            if (size > 0 && positions[head] <= position - period) {
+                head = head + 1 == period ? 0 : head + 1;
+                size--;
+            }
+
+            while (size > 0 && dominates(d, values[tail()])) {
+                size--;
+            }
+
+            size++;
+            int tail = tail();
+            values[tail] = d;
+            positions[tail] = position;
+            position++;
+
+            return values[head];
         }
 
-        if (quantile < 0 || quantile > 1) {
-            throw new IllegalArgumentException("" + quantile);
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
+            }
         }
 
-        if (period == 1) {
-            return Function.identity();
+        /**
+         * Writes the global position and the deque from the head.
+         */
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, max ? MAX : MIN, period);
+            out.writeLong(position);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                int index = head + i >= period ? head + i - period : head + i;
+                out.writeDouble(values[index]);
+                out.writeLong(positions[index]);
+            }
         }
 
-        return new Function<Double, Double>() {
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, max ? MAX : MIN, period);
+            long newPosition = in.readLong();
+            int newSize = in.readInt();
+            if (newSize < 0 || newSize > period) {
+                throw new IOException("Corrupted state, size: " + newSize);
+            }
+            double[] newValues = new double[newSize];
+            long[] newPositions = new long[newSize];
+            for (int i = 0; i < newSize; i++) {
+                newValues[i] = in.readDouble();
+                newPositions[i] = in.readLong();
+            }
+            System.arraycopy(newValues, 0, values, 0, newSize);
+            System.arraycopy(newPositions, 0, positions, 0, newSize);
+            position = newPosition;
+            size = newSize;
+            head = 0;
+        }
 
-            private final DoubleRingBuffer history = new DoubleRingBuffer(period + 1);
+        private int tail() {
+            int tail = head + size - 1;
+            return tail >= period ? tail - period : tail;
+        }
 
-            //The heap stores max value in the root (reverse comparator)
-            private final PriorityQueue<Double> low = new PriorityQueue<>(1, Comparator.reverseOrder());
+        private boolean dominates(double newValue, double oldValue) {
+            int comparison = Double.compare(newValue, oldValue);
+            return max ? comparison >= 0 : comparison <= 0;
+        }
+    }
 
-            //The heap stores min value in the root (default comparator).
-            private final PriorityQueue<Double> high = new PriorityQueue<>(1, Comparator.naturalOrder());
+    /**
+     * The value period steps back, or the first value during the first period steps.
+     */
+    private static final class Shift implements StatefulDoubleOperator {
 
-            @Override
-            public Double apply(Double d) {
+        private final int period;
+        private final DoubleRingBuffer history;
 
-                if (isEmpty() || d <= peek()) {
-                    low.add(d);
-                } else {
-                    high.add(d);
-                }
+        private Shift(int period) {
+            this.period = period;
+            history = new DoubleRingBuffer(period);
+        }
 
+        @Override
+        public double next(double d) {
+            if (history.isEmpty()) {
                 history.add(d);
-                if (history.isFull()) {
-                    double old = history.first();
-                    if (!low.remove(old)) {
-                        high.remove(old);
-                    }
-                }
+                return d;
+            } else {
+                double result = history.first();
+                history.add(d);
+                return result;
+            }
+        }
 
-                int expectedLowSize = (int) Math.round(quantile * size());
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
+            }
+        }
 
-                while (!low.isEmpty() && low.size() > expectedLowSize) {
-                    high.add(low.poll());
-                }
-                while (!high.isEmpty() && low.size() < expectedLowSize) {
-                    low.add(high.poll());
-                }
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, SHIFT, period);
+            history.saveState(out);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, SHIFT, period);
+            history.loadState(in);
+        }
+    }
+
+    private static final class MovingQuantile implements StatefulDoubleOperator {
+
+        private final int period;
+        private final double quantile;
+        private final boolean interpolate;
+        private final DoubleRingBuffer history;
+        private final DoubleOrderStatisticTree ordered;
 
-                return peek();
+        private MovingQuantile(int period, double quantile, boolean interpolate) {
+            this.period = period;
+            this.quantile = quantile;
+            this.interpolate = interpolate;
+            history = new DoubleRingBuffer(period);
+            ordered = new DoubleOrderStatisticTree(period);
+        }
+
+        @Override
+        public double next(double d) {
+
+            if (history.isFull()) {
+                ordered.remove(history.first());
+            }
+            history.add(d);
+            ordered.add(d);
+
+            int size = ordered.size();
+            if (interpolate) {
+                double position = quantile * (size - 1);
+                int lower = (int) position;
+                double lowerValue = ordered.get(lower);
+                double fraction = position - lower;
+                return fraction == 0.0 ? lowerValue : lowerValue + fraction * (ordered.get(lower + 1) - lowerValue);
+            } else {
+                int rank = (int) Math.round(quantile * size);
+                return ordered.get(Math.max(rank, 1) - 1);
             }
+        }
 
-            private boolean isEmpty() {
-                return size() == 0;
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
             }
+        }
+
+        /**
+         * Only the window is written, the tree is rebuilt from it on load.
+         */
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, QUANTILE, period);
+            history.saveState(out);
+        }
 
-            private int size() {
-                return low.size() + high.size();
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, QUANTILE, period);
+            history.loadState(in);
+            ordered.clear();
+            for (int i = 0; i < history.size(); i++) {
+                ordered.add(history.get(i));
             }
+        }
+    }
+
+    private static final class MovingQuantileApprox implements StatefulDoubleOperator {
+
+        private final int period;
+        private final double quantile;
+        private final SlidingQuantileSketch sketch;
+
+        private MovingQuantileApprox(int period, double quantile, double rankError) {
+            this.period = period;
+            this.quantile = quantile;
+            sketch = new SlidingQuantileSketch(period, rankError);
+        }
 
-            private double peek() {
-                return low.isEmpty() ? high.peek() : low.peek();
+        @Override
+        public double next(double d) {
+            sketch.add(d);
+            return sketch.get(quantile);
+        }
+
+        @Override
+        public void apply(double[] in, int off, int len, double[] out) {
+            for (int i = off; i < off + len; i++) {
+                out[i] = next(in[i]);
             }
-        };
+        }
+
+        @Override
+        public void saveState(DataOutput out) throws IOException {
+            writeHeader(out, QUANTILE_APPROX, period);
+            sketch.saveState(out);
+        }
+
+        @Override
+        public void loadState(DataInput in) throws IOException {
+            readHeader(in, QUANTILE_APPROX, period);
+            sketch.loadState(in);
+        }
     }
 }
@@ -0,0 +1,190 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+/**
+ * Multiset of doubles supporting insertion, removal and selection by rank in O(log n) expected time.
+ * Implemented as a treap over primitive arrays, with a fixed capacity and no allocation after construction.
+ * The values are ordered as in Double.compare.
+ */
+public class DoubleOrderStatisticTree {
+
+    private static final int NIL = -1;
+
+    private final double[] keys;
+    private final int[] priorities;
+    private final int[] left;
+    private final int[] right;
+    private final int[] counts;
+
+    //Stack of unused nodes
+    private final int[] free;
+    private int freeSize;
+
+    private int root = NIL;
+    private int seed = 0x2545F491;
+
+    //Results of split()
+    private int splitLeft;
+    private int splitRight;
+
+    public DoubleOrderStatisticTree(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("" + capacity);
+        }
+        keys = new double[capacity];
+        priorities = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        counts = new int[capacity];
+        free = new int[capacity];
+        clear();
+    }
+
+    public int size() {
+        return count(root);
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    public void add(double d) {
+        if (freeSize == 0) {
+            throw new IllegalStateException("Capacity exceeded: " + keys.length);
+        }
+        int node = free[--freeSize];
+        keys[node] = d;
+        priorities[node] = nextPriority();
+        left[node] = NIL;
+        right[node] = NIL;
+        counts[node] = 1;
+
+        split(root, d, false);
+        int lower = splitLeft;
+        int upper = splitRight;
+        root = merge(merge(lower, node), upper);
+    }
+
+    /**
+     * Removes one occurrence of the value.
+     * @return false if the value is not present
+     */
+    public boolean remove(double d) {
+        split(root, d, false);
+        int lower = splitLeft;
+        split(splitRight, d, true);
+        int equal = splitLeft;
+        int upper = splitRight;
+        boolean found = equal != NIL;
+        if (found) {
+            free[freeSize++] = equal;
+            equal = merge(left[equal], right[equal]);
+        }
+        root = merge(merge(lower, equal), upper);
+        return found;
+    }
+
+    /**
+     * @param rank 0 for the lowest value, size()-1 for the highest one
+     */
+    public double get(int rank) {
+        if (rank < 0 || rank >= size()) {
+            throw new IndexOutOfBoundsException(rank + " >= " + size());
+        }
+        int node = root;
+        while (true) {
+            int leftCount = count(left[node]);
+            if (rank < leftCount) {
+                node = left[node];
+            } else if (rank == leftCount) {
+                return keys[node];
+            } else {
+                rank -= leftCount + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    public void clear() {
+        int capacity = keys.length;
+        for (int i = 0; i < capacity; i++) {
+            free[i] = capacity - 1 - i;
+        }
+        freeSize = capacity;
+        root = NIL;
+    }
+
+    /**
+     * Splits the tree into the nodes lower than d (or lower or equal, if inclusive) and the rest.
+     */
+    private void split(int node, double d, boolean inclusive) {
+        if (node == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        int comparison = Double.compare(keys[node], d);
+        if (comparison < 0 || (inclusive && comparison == 0)) {
+            split(right[node], d, inclusive);
+            right[node] = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            split(left[node], d, inclusive);
+            left[node] = splitRight;
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    /**
+     * Merges two trees, all values in the lower tree must be lower or equal to the values in the upper one.
+     */
+    private int merge(int lower, int upper) {
+        if (lower == NIL) {
+            return upper;
+        }
+        if (upper == NIL) {
+            return lower;
+        }
+        if (priorities[lower] > priorities[upper]) {
+            right[lower] = merge(right[lower], upper);
+            update(lower);
+            return lower;
+        } else {
+            left[upper] = merge(lower, left[upper]);
+            update(upper);
+            return upper;
+        }
+    }
+
+    private void update(int node) {
+        counts[node] = 1 + count(left[node]) + count(right[node]);
+    }
+
+    private int count(int node) {
+        return node == NIL ? 0 : counts[node];
+    }
+
+    private int nextPriority() {
+        //xorshift
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
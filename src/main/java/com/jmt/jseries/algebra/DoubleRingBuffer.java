@@ -15,6 +15,9 @@
 */
 package com.jmt.jseries.algebra;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class DoubleRingBuffer {
@@ -53,10 +56,65 @@ public class DoubleRingBuffer {
         if (relIndex < 0 || relIndex >= size) {
             throw new IndexOutOfBoundsException(relIndex + " >= " + size);
         }
-        int trueIndex = (lastIndex + relIndex + 1) % size;
+        //The oldest element follows the last one, size == maxSize whenever the index wraps around
+        int trueIndex = lastIndex + relIndex + 1;
+        if (trueIndex >= size) {
+            trueIndex -= size;
+        }
         return values[trueIndex];
     }
 
+    public void clear() {
+        size = 0;
+        lastIndex = -1;
+    }
+
+    /**
+     * Writes the size and the elements from the first one.
+     */
+    public void saveState(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(get(i));
+        }
+    }
+
+    /**
+     * Replaces the content with the elements written by {@link #saveState(DataOutput)},
+     * the content is not changed if the state cannot be read.
+     */
+    public void loadState(DataInput in) throws IOException {
+        load(readState(in));
+    }
+
+    /**
+     * Reads the elements written by {@link #saveState(DataOutput)} without changing the content,
+     * so that the caller can read the rest of its state before {@link #load(double[])}.
+     */
+    public double[] readState(DataInput in) throws IOException {
+        int newSize = in.readInt();
+        if (newSize < 0 || newSize > maxSize) {
+            throw new IOException("Corrupted state, size: " + newSize + " max size: " + maxSize);
+        }
+        double[] elements = new double[newSize];
+        for (int i = 0; i < newSize; i++) {
+            elements[i] = in.readDouble();
+        }
+        return elements;
+    }
+
+    /**
+     * Replaces the content with the elements, from the first one.
+     */
+    public void load(double[] elements) {
+        if (elements.length > maxSize) {
+            throw new IllegalArgumentException("" + elements.length);
+        }
+        System.arraycopy(elements, 0, values, 0, elements.length);
+        size = elements.length;
+        lastIndex = elements.length - 1;
+    }
+
     public double last() {
         if (size == 0) {
             throw new IndexOutOfBoundsException();
@@ -90,11 +148,14 @@ public class DoubleRingBuffer {
     }
 
     public double[] toArray() {
-        //TODO make it faster with arraycopy
         double[] result = new double[size];
-        for (int i = 0; i < size; i++) {
-            result[i] = get(i);
+        int firstIndex = lastIndex + 1 - size;
+        if (firstIndex < 0) {
+            firstIndex += maxSize;
         }
+        int head = Math.min(size, maxSize - firstIndex);
+        System.arraycopy(values, firstIndex, result, 0, head);
+        System.arraycopy(values, 0, result, head, size - head);
         return result;
     }
 }
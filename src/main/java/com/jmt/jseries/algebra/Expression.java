@@ -0,0 +1,374 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+import com.jmt.jseries.array.RegularInstantSortedArray;
+
+import java.time.Instant;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lazily evaluated expression over series of doubles.
+ * <p>
+ * The operations in Binary, Unary and Moving materialize a full intermediate series for every step.
+ * Expression only records the operator tree, and {@link #evaluate()} computes all the steps
+ * in a single pass over the output domain, materializing just the final result.
+ * The semantics are the same as for the eager operations:
+ * the result has the domain and the default value of the leftmost series,
+ * the right operand of a binary operation is accessed as a total function
+ * (the last known value at the given time), and the moving operations
+ * run over the domain of their own operand.
+ * <pre>
+ * InstantDoubleSeries smoothedPortfolioValue = Expression.of(ibm).mul(100)
+ *         .add(Expression.of(apple).mul(200))
+ *         .movingAvg(30)
+ *         .evaluate();
+ * </pre>
+ */
+public abstract class Expression {
+
+    public static Expression of(Series<Instant, Double> series) {
+        return new Source(InstantDoubleSeries.of(series));
+    }
+
+    private final String name;
+
+    private Expression(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    abstract InstantDoubleSeries source();
+
+    /**
+     * Creates a fresh evaluation stage. Each call of Stage.next() returns the value
+     * at the next point of the domain of this expression, starting from the first one.
+     */
+    abstract Stage stage();
+
+    PrimitiveInstantSortedArray domain() {
+        return source().domain();
+    }
+
+    public InstantDoubleSeries evaluate() {
+        InstantDoubleSeries source = source();
+        int size = source.size();
+        Stage stage = stage();
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = stage.next();
+        }
+        return InstantDoubleSeries.create(name, source.domain(), DoubleArray.ofNoClone(result), source.defaultDoubleValue());
+    }
+
+    public Expression map(DoubleUnaryOperator mapper, String name) {
+        return new Mapped(name, this, mapper);
+    }
+
+    public Expression zip(Expression operand2, DoubleBinaryOperator operator, String name) {
+        return new Zipped(name, this, operand2, operator);
+    }
+
+    public Expression moving(Supplier<? extends Function<Double, Double>> dirtyFunction, String name) {
+        return movingOperator(() -> StatefulDoubleOperator.of(dirtyFunction.get()), name);
+    }
+
+    public Expression movingOperator(Supplier<? extends StatefulDoubleOperator> operator, String name) {
+        return new Stateful(name, this, operator);
+    }
+
+    public Expression add(double op2) {
+        return map(x -> x + op2, "Add(" + name + "," + op2 + ")");
+    }
+
+    public Expression add(Series<Instant, Double> op2) {
+        return add(of(op2));
+    }
+
+    public Expression add(Expression op2) {
+        return zip(op2, (x, y) -> x + y, "Add(" + name + "," + op2 + ")");
+    }
+
+    public Expression sub(double op2) {
+        return map(x -> x - op2, "Sub(" + name + "," + op2 + ")");
+    }
+
+    public Expression sub(Series<Instant, Double> op2) {
+        return sub(of(op2));
+    }
+
+    public Expression sub(Expression op2) {
+        return zip(op2, (x, y) -> x - y, "Sub(" + name + "," + op2 + ")");
+    }
+
+    public Expression mul(double op2) {
+        return map(x -> x * op2, "Mul(" + name + "," + op2 + ")");
+    }
+
+    public Expression mul(Series<Instant, Double> op2) {
+        return mul(of(op2));
+    }
+
+    public Expression mul(Expression op2) {
+        return zip(op2, (x, y) -> x * y, "Mul(" + name + "," + op2 + ")");
+    }
+
+    public Expression div(double op2) {
+        return map(x -> x / op2, "Div(" + name + "," + op2 + ")");
+    }
+
+    public Expression div(Series<Instant, Double> op2) {
+        return div(of(op2));
+    }
+
+    public Expression div(Expression op2) {
+        return zip(op2, (x, y) -> x / y, "Div(" + name + "," + op2 + ")");
+    }
+
+    public Expression div0(double op2) {
+        return map(x -> op2 == 0.0 ? 0.0 : x / op2, "Div0(" + name + "," + op2 + ")");
+    }
+
+    public Expression div0(Series<Instant, Double> op2) {
+        return div0(of(op2));
+    }
+
+    public Expression div0(Expression op2) {
+        return zip(op2, (x, y) -> y == 0.0 ? 0.0 : x / y, "Div0(" + name + "," + op2 + ")");
+    }
+
+    public Expression max(double op2) {
+        return map(x -> Math.max(x, op2), "Max(" + name + "," + op2 + ")");
+    }
+
+    public Expression max(Series<Instant, Double> op2) {
+        return max(of(op2));
+    }
+
+    public Expression max(Expression op2) {
+        return zip(op2, Math::max, "Max(" + name + "," + op2 + ")");
+    }
+
+    public Expression min(double op2) {
+        return map(x -> Math.min(x, op2), "Min(" + name + "," + op2 + ")");
+    }
+
+    public Expression min(Series<Instant, Double> op2) {
+        return min(of(op2));
+    }
+
+    public Expression min(Expression op2) {
+        return zip(op2, Math::min, "Min(" + name + "," + op2 + ")");
+    }
+
+    public Expression minus() {
+        return map(x -> -x, "Minus(" + name + ")");
+    }
+
+    public Expression abs() {
+        return map(Math::abs, "Abs(" + name + ")");
+    }
+
+    public Expression sqr() {
+        return map(x -> x * x, "Sqr(" + name + ")");
+    }
+
+    public Expression sqrt() {
+        return map(Math::sqrt, "Sqrt(" + name + ")");
+    }
+
+    public Expression sgn() {
+        return map(Math::signum, "Sgn(" + name + ")");
+    }
+
+    public Expression movingAvg(int period) {
+        return movingOperator(() -> DirtyFunctions.movingAvgOperator(period), "MA(" + name + "," + period + ")");
+    }
+
+    public Expression movingAvgExp(int period) {
+        return movingOperator(() -> DirtyFunctions.movingAvgExpOperator(period), "EMA(" + name + "," + period + ")");
+    }
+
+    public Expression movingSum(int period) {
+        return movingOperator(() -> DirtyFunctions.movingSumOperator(period), "Sum(" + name + "," + period + ")");
+    }
+
+    public Expression movingMin(int period) {
+        return movingOperator(() -> DirtyFunctions.movingMinOperator(period), "Min(" + name + "," + period + ")");
+    }
+
+    public Expression movingMax(int period) {
+        return movingOperator(() -> DirtyFunctions.movingMaxOperator(period), "Max(" + name + "," + period + ")");
+    }
+
+    public Expression shift(int shift) {
+        return movingOperator(() -> DirtyFunctions.shiftOperator(shift), "Shift(" + name + "," + shift + ")");
+    }
+
+    public Expression movingQuantile(int period, double quantile) {
+        return movingOperator(() -> DirtyFunctions.movingQuantileOperator(period, quantile, false), "Qtl(" + name + "," + period + "," + quantile + ")");
+    }
+
+    interface Stage {
+        double next();
+    }
+
+    private static final class Source extends Expression {
+
+        private final InstantDoubleSeries series;
+
+        private Source(InstantDoubleSeries series) {
+            super(series.name());
+            this.series = series;
+        }
+
+        @Override
+        InstantDoubleSeries source() {
+            return series;
+        }
+
+        @Override
+        Stage stage() {
+            PrimitiveDoubleArray values = series.values();
+            return new Stage() {
+
+                private int index;
+
+                @Override
+                public double next() {
+                    return values.getDouble(index++);
+                }
+            };
+        }
+    }
+
+    private static final class Mapped extends Expression {
+
+        private final Expression operand;
+        private final DoubleUnaryOperator mapper;
+
+        private Mapped(String name, Expression operand, DoubleUnaryOperator mapper) {
+            super(name);
+            this.operand = operand;
+            this.mapper = mapper;
+        }
+
+        @Override
+        InstantDoubleSeries source() {
+            return operand.source();
+        }
+
+        @Override
+        Stage stage() {
+            Stage input = operand.stage();
+            return () -> mapper.applyAsDouble(input.next());
+        }
+    }
+
+    private static final class Stateful extends Expression {
+
+        private final Expression operand;
+        private final Supplier<? extends StatefulDoubleOperator> operator;
+
+        private Stateful(String name, Expression operand, Supplier<? extends StatefulDoubleOperator> operator) {
+            super(name);
+            this.operand = operand;
+            this.operator = operator;
+            //Fail fast on invalid parameters rather than on evaluation
+            operator.get();
+        }
+
+        @Override
+        InstantDoubleSeries source() {
+            return operand.source();
+        }
+
+        @Override
+        Stage stage() {
+            Stage input = operand.stage();
+            StatefulDoubleOperator stageOperator = operator.get();
+            return () -> stageOperator.next(input.next());
+        }
+    }
+
+    private static final class Zipped extends Expression {
+
+        private final Expression operand1;
+        private final Expression operand2;
+        private final DoubleBinaryOperator operator;
+
+        private Zipped(String name, Expression operand1, Expression operand2, DoubleBinaryOperator operator) {
+            super(name);
+            this.operand1 = operand1;
+            this.operand2 = operand2;
+            this.operator = operator;
+        }
+
+        @Override
+        InstantDoubleSeries source() {
+            return operand1.source();
+        }
+
+        @Override
+        Stage stage() {
+            Stage input1 = operand1.stage();
+            Stage input2 = operand2.stage();
+            PrimitiveInstantSortedArray domain1 = operand1.domain();
+            PrimitiveInstantSortedArray domain2 = operand2.domain();
+
+            if (domain1 == domain2 || RegularInstantSortedArray.sameGrid(domain1, domain2)) {
+                return () -> operator.applyAsDouble(input1.next(), input2.next());
+            }
+
+            //Merge the domains, operand2 is evaluated on its own domain and sampled as of the time points of operand1.
+            //All the points of operand2 must be consumed in order, because they may feed stateful stages.
+            double defaultValue2 = operand2.source().defaultDoubleValue();
+            int size2 = domain2.size();
+            return new Stage() {
+
+                private int index1;
+                private int index2;
+                private double value2 = defaultValue2;
+
+                @Override
+                public double next() {
+                    long time = domain1.getMillis(index1++);
+                    while (index2 < size2 && domain2.getMillis(index2) <= time) {
+                        value2 = input2.next();
+                        index2++;
+                    }
+                    return operator.applyAsDouble(input1.next(), value2);
+                }
+            };
+        }
+    }
+}
@@ -16,34 +16,147 @@
 package com.jmt.jseries.algebra;
 
 import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
 
 public class Moving {
 
     public static <T extends Comparable<T>> Series<T, Double> avg(Series<T, Double> src, int period) {
-        return src.mapValues(DirtyFunctions.movingAvg(period)).withName("MA(" + src.name() + "," + period + ")");
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingAvgOperator(period))).withName("MA(" + src.name() + "," + period + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> avgExp(Series<T, Double> src, int period) {
-        return src.mapValues(DirtyFunctions.movingAvgExp(period)).withName("EMA(" + src.name() + "," + period + ")");
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingAvgExpOperator(period))).withName("EMA(" + src.name() + "," + period + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sum(Series<T, Double> src, int period) {
-        return src.mapValues(DirtyFunctions.movingSum(period)).withName("Sum(" + src.name() + "," + period + ")");
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingSumOperator(period))).withName("Sum(" + src.name() + "," + period + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> src, int period) {
-        return src.mapValues(DirtyFunctions.movingMin(period)).withName("Min(" + src.name() + "," + period + ")");
+        return src.withValues(DirtyFunctions.movingMin(src.values(), period)).withName("Min(" + src.name() + "," + period + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> src, int period) {
-        return src.mapValues(DirtyFunctions.movingMax(period)).withName("Max(" + src.name() + "," + period + ")");
+        return src.withValues(DirtyFunctions.movingMax(src.values(), period)).withName("Max(" + src.name() + "," + period + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> shift(Series<T, Double> src, int shift) {
-        return src.mapValues(DirtyFunctions.shift(shift)).withName("Shift(" + src.name() + "," + shift + ")");
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.shiftOperator(shift))).withName("Shift(" + src.name() + "," + shift + ")");
     }
     
     public static <T extends Comparable<T>> Series<T, Double> quantile(Series<T, Double> src, int period, double quantile) {
-        return src.mapValues(DirtyFunctions.movingQuantile(period, quantile)).withName("Qtl(" + src.name() + "," + period + "," + quantile + ")");
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingQuantileOperator(period, quantile, false))).withName("Qtl(" + src.name() + "," + period + "," + quantile + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> quantile(Series<T, Double> src, int period, double quantile, boolean interpolate) {
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingQuantileOperator(period, quantile, interpolate))).withName(quantileName(src.name(), period, quantile, interpolate));
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> quantileApprox(Series<T, Double> src, int period, double quantile, double rankError) {
+        return src.withValues(DirtyFunctions.apply(src.values(), DirtyFunctions.movingQuantileApproxOperator(period, quantile, rankError))).withName("QtlApprox(" + src.name() + "," + period + "," + quantile + ")");
+    }
+
+    //Extensions of previous results
+
+    /**
+     * Same as {@link #avg(Series, int)}, for src extended with new points since previousResult was computed.
+     * Only the new points are computed, after a warm-up with the period preceding points,
+     * the values of previousResult are reused. The results are the same as from {@link #avg(Series, int)}
+     * up to floating point rounding.
+     * @param previousResult the result of the same operation over a prefix of src
+     */
+    public static <T extends Comparable<T>> Series<T, Double> avg(Series<T, Double> src, int period, Series<T, Double> previousResult) {
+        return extend(src, previousResult, period, DirtyFunctions.movingAvgOperator(period)).withName("MA(" + src.name() + "," + period + ")");
+    }
+
+    /**
+     * Same as {@link #avgExp(Series, int)}, for src extended with new points since previousResult was computed.
+     * Only the new points are computed, continuing from the last value of previousResult.
+     * @param previousResult the result of the same operation over a prefix of src
+     */
+    public static <T extends Comparable<T>> Series<T, Double> avgExp(Series<T, Double> src, int period, Series<T, Double> previousResult) {
+        int previousSize = previousResult.size();
+        StatefulDoubleOperator operator = previousSize == 0
+                ? DirtyFunctions.movingAvgExpOperator(period)
+                : DirtyFunctions.movingAvgExpOperator(period, previousResult.value(previousSize - 1));
+        return extend(src, previousResult, 0, operator).withName("EMA(" + src.name() + "," + period + ")");
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> sum(Series<T, Double> src, int period, Series<T, Double> previousResult) {
+        return extend(src, previousResult, period, DirtyFunctions.movingSumOperator(period)).withName("Sum(" + src.name() + "," + period + ")");
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}, the results are exactly the same as from {@link #min(Series, int)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> src, int period, Series<T, Double> previousResult) {
+        return extend(src, previousResult, period, DirtyFunctions.movingMinOperator(period)).withName("Min(" + src.name() + "," + period + ")");
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}, the results are exactly the same as from {@link #max(Series, int)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> src, int period, Series<T, Double> previousResult) {
+        return extend(src, previousResult, period, DirtyFunctions.movingMaxOperator(period)).withName("Max(" + src.name() + "," + period + ")");
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}, the results are exactly the same as from {@link #shift(Series, int)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> shift(Series<T, Double> src, int shift, Series<T, Double> previousResult) {
+        return extend(src, previousResult, shift, DirtyFunctions.shiftOperator(shift)).withName("Shift(" + src.name() + "," + shift + ")");
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}, the results are exactly the same as from {@link #quantile(Series, int, double)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> quantile(Series<T, Double> src, int period, double quantile, Series<T, Double> previousResult) {
+        return quantile(src, period, quantile, false, previousResult);
+    }
+
+    /**
+     * See {@link #avg(Series, int, Series)}, the results are exactly the same as from {@link #quantile(Series, int, double, boolean)}.
+     */
+    public static <T extends Comparable<T>> Series<T, Double> quantile(Series<T, Double> src, int period, double quantile, boolean interpolate,
+                                                                      Series<T, Double> previousResult) {
+        return extend(src, previousResult, period, DirtyFunctions.movingQuantileOperator(period, quantile, interpolate))
+                .withName(quantileName(src.name(), period, quantile, interpolate));
+    }
+
+    //The interpolated quantile differs from the plain one, so it has its own name
+    private static String quantileName(String name, int period, double quantile, boolean interpolate) {
+        return (interpolate ? "QtlI(" : "Qtl(") + name + "," + period + "," + quantile + ")";
+    }
+
+    private static <T extends Comparable<T>> Series<T, Double> extend(
+            Series<T, Double> src, Series<T, Double> previousResult, int lookBack, StatefulDoubleOperator operator) {
+
+        int size = src.size();
+        int previousSize = previousResult.size();
+        if (previousSize > size) {
+            throw new IllegalArgumentException("The previous result is longer than the source. " + previousSize + " " + size);
+        }
+        if (previousSize > 0 && previousResult.domain(previousSize - 1).compareTo(src.domain(previousSize - 1)) != 0) {
+            throw new IllegalArgumentException("The previous result is not computed over a prefix of the source. position: "
+                    + (previousSize - 1) + " values: " + previousResult.domain(previousSize - 1) + " " + src.domain(previousSize - 1));
+        }
+
+        PrimitiveDoubleArray input = PrimitiveDoubleArray.of(src.values());
+        double[] result = new double[size];
+        PrimitiveDoubleArray.of(previousResult.values()).getDoubles(0, previousSize, result, 0);
+
+        int warmUpFrom = Math.max(0, previousSize - lookBack);
+        double[] warmUp = new double[previousSize - warmUpFrom];
+        input.getDoubles(warmUpFrom, previousSize, warmUp, 0);
+        operator.apply(warmUp, 0, warmUp.length, warmUp);
+
+        input.getDoubles(previousSize, size, result, previousSize);
+        operator.apply(result, previousSize, size - previousSize, result);
+
+        return src.withValues(DoubleArray.ofNoClone(result));
     }
 }
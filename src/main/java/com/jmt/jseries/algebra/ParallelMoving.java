@@ -0,0 +1,139 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.ParallelUtil;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Parallel versions of the operations in Moving, for large series.
+ * The values are split into chunks processed by a ForkJoinPool, see {@link ParallelUtil}.
+ * Every chunk gets its own stateful operator, warmed up with the period points preceding the chunk,
+ * so the results are the same as from Moving (up to floating point rounding).
+ * The exponential moving average, which depends on all the previous points, is computed
+ * as a parallel scan instead: every chunk is computed from zero and then corrected by the decayed
+ * last result of the previous chunk.
+ */
+public class ParallelMoving {
+
+    public static <T extends Comparable<T>> Series<T, Double> avg(Series<T, Double> src, int period) {
+        return compute(src, period, () -> DirtyFunctions.movingAvgOperator(period)).withName("MA(" + src.name() + "," + period + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> sum(Series<T, Double> src, int period) {
+        return compute(src, period, () -> DirtyFunctions.movingSumOperator(period)).withName("Sum(" + src.name() + "," + period + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> min(Series<T, Double> src, int period) {
+        return compute(src, period, () -> DirtyFunctions.movingMinOperator(period)).withName("Min(" + src.name() + "," + period + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> max(Series<T, Double> src, int period) {
+        return compute(src, period, () -> DirtyFunctions.movingMaxOperator(period)).withName("Max(" + src.name() + "," + period + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> shift(Series<T, Double> src, int shift) {
+        return compute(src, shift, () -> DirtyFunctions.shiftOperator(shift)).withName("Shift(" + src.name() + "," + shift + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> quantile(Series<T, Double> src, int period, double quantile) {
+        return compute(src, period, () -> DirtyFunctions.movingQuantileOperator(period, quantile, false))
+                .withName("Qtl(" + src.name() + "," + period + "," + quantile + ")");
+    }
+
+    public static <T extends Comparable<T>> Series<T, Double> avgExp(Series<T, Double> src, int period) {
+
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
+        }
+
+        PrimitiveDoubleArray input = PrimitiveDoubleArray.of(src.values());
+        int size = input.size();
+        double[] result = new double[size];
+        double smoothingFactor = 2.0 / (period + 1.0);
+        double decay = 1.0 - smoothingFactor;
+        int[] bounds = ParallelUtil.split(size, ParallelUtil.DEFAULT_THRESHOLD);
+
+        //Pass 1: every chunk as if the previous result was 0, the first chunk exactly
+        ParallelUtil.forEachChunk(bounds, (from, toExcl) -> {
+            input.getDoubles(from, toExcl, result, from);
+            double prev = 0.0;
+            int start = from;
+            if (from == 0 && toExcl > 0) {
+                prev = result[0];
+                start = 1;
+            }
+            for (int i = start; i < toExcl; i++) {
+                prev = result[i] * smoothingFactor + prev * decay;
+                result[i] = prev;
+            }
+        });
+
+        //The true last result of every chunk, sequentially over the chunks
+        int chunks = bounds.length - 1;
+        double[] carry = new double[chunks];
+        for (int c = 1; c < chunks; c++) {
+            int from = bounds[c];
+            int toExcl = bounds[c + 1];
+            double previousLast = c == 1 ? result[from - 1] : carry[c - 1];
+            carry[c] = result[toExcl - 1] + Math.pow(decay, toExcl - from) * previousLast;
+        }
+
+        //Pass 2: add the decayed last result of the previous chunk
+        ParallelUtil.forEachChunk(bounds, (from, toExcl) -> {
+            if (from == 0) {
+                return;
+            }
+            int c = Arrays.binarySearch(bounds, from);
+            double correction = c == 1 ? result[from - 1] : carry[c - 1];
+            for (int i = from; i < toExcl; i++) {
+                correction *= decay;
+                result[i] += correction;
+            }
+        });
+
+        return src.withValues(DoubleArray.ofNoClone(result)).withName("EMA(" + src.name() + "," + period + ")");
+    }
+
+    private static <T extends Comparable<T>> Series<T, Double> compute(
+            Series<T, Double> src, int period, Supplier<StatefulDoubleOperator> operator) {
+
+        //Fail fast on invalid parameters in the calling thread
+        operator.get();
+
+        PrimitiveDoubleArray input = PrimitiveDoubleArray.of(src.values());
+        int size = input.size();
+        double[] result = new double[size];
+        int minChunkSize = (int) Math.min(Integer.MAX_VALUE, Math.max(ParallelUtil.DEFAULT_THRESHOLD, 4L * period));
+
+        ParallelUtil.forEachChunk(size, minChunkSize, (from, toExcl) -> {
+            StatefulDoubleOperator chunkOperator = operator.get();
+            int warmUpFrom = Math.max(0, from - period);
+            double[] warmUp = new double[from - warmUpFrom];
+            input.getDoubles(warmUpFrom, from, warmUp, 0);
+            chunkOperator.apply(warmUp, 0, warmUp.length, warmUp);
+            input.getDoubles(from, toExcl, result, from);
+            chunkOperator.apply(result, from, toExcl - from, result);
+        });
+
+        return src.withValues(DoubleArray.ofNoClone(result));
+    }
+}
@@ -0,0 +1,414 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Approximate quantiles over a sliding window, in memory independent of the window size.
+ * <p>
+ * The window is split into blocks of rankError * period / 2 values. When a block is complete,
+ * it is compressed into a summary of 2 / rankError evenly spaced order statistics, and the summaries
+ * of all blocks in the window are kept in one sorted array. Whole blocks expire at once,
+ * so the window size varies by less than one block.
+ * <p>
+ * The current block is not kept in full, but in a hierarchy of compactors: level h holds sorted values
+ * of weight 2^h, and when it is full, every other value moves to level h + 1 with a double weight.
+ * The levels above the first one change only on compaction, and are kept merged in one sorted array
+ * with cumulative weights, so a query needs a binary search in three arrays only.
+ * Blocks smaller than one level are kept exactly.
+ * <p>
+ * The rank of the returned value differs from the exact one by at most about rankError * period.
+ * The memory is about 8 / rankError^2 values for the summaries, plus O(log^2(rankError * period))
+ * for the current block. An update takes O(log^2(rankError * period)) amortized time,
+ * except for the completion of a block, which takes O(1 / rankError^2).
+ */
+public class SlidingQuantileSketch {
+
+    private final int period;
+    private final int blockSize;
+    private final int summarySize;
+    private final double summaryWeight;
+
+    //The current block, level h holds sorted values of weight 2^h
+    private final int levelCapacity;
+    private final double[][] levels;
+    private final int[] levelSizes;
+    private final int[] compactions;
+    private int blockFill;
+
+    //The levels above the first one merged, sorted, with the cumulative weights
+    private final double[] upper;
+    private final long[] upperWeights;
+    private int upperSize;
+
+    //Ring of the summaries of the complete blocks in the window, the oldest first
+    private final double[][] summaries;
+    private int firstSummary;
+    private int summaryCount;
+
+    //All the summaries merged, sorted
+    private final double[] merged;
+    private int mergedSize;
+
+    public SlidingQuantileSketch(int period, double rankError) {
+        if (period < 1) {
+            throw new IllegalArgumentException("" + period);
+        }
+        if (rankError <= 0 || rankError >= 1) {
+            throw new IllegalArgumentException("" + rankError);
+        }
+        this.period = period;
+        blockSize = Math.max(1, (int) (rankError * period / 2));
+        summarySize = Math.min(blockSize, (int) Math.ceil(2 / rankError));
+        summaryWeight = (double) blockSize / summarySize;
+
+        //Each compaction costs at most 2^h of rank, so the capacity grows with the number of levels
+        levelCapacity = Math.max(16, 4 * (32 - Integer.numberOfLeadingZeros(blockSize)));
+        //The top level never fills up before the block is complete
+        int levelCount = 1;
+        while ((long) levelCapacity << (levelCount - 1) <= blockSize) {
+            levelCount++;
+        }
+        levels = new double[levelCount][levelCapacity + levelCapacity / 2];
+        levelSizes = new int[levelCount];
+        compactions = new int[levelCount];
+        upper = new double[(levelCount - 1) * (levelCapacity + levelCapacity / 2)];
+        upperWeights = new long[upper.length];
+
+        int maxBlocks = period / blockSize + 1;
+        summaries = new double[maxBlocks][summarySize];
+        merged = new double[maxBlocks * summarySize];
+    }
+
+    /**
+     * Number of values represented in the window.
+     */
+    public int size() {
+        return summaryCount * blockSize + blockFill;
+    }
+
+    public void add(double d) {
+
+        double[] level = levels[0];
+        int position = upperBound(level, levelSizes[0], d);
+        System.arraycopy(level, position, level, position + 1, levelSizes[0] - position);
+        level[position] = d;
+        levelSizes[0]++;
+        blockFill++;
+        if (levelSizes[0] >= levelCapacity) {
+            compact(0);
+            mergeUpper();
+        }
+
+        if (blockFill == blockSize) {
+            double[] summary = summaries[(firstSummary + summaryCount) % summaries.length];
+            summarize(summary);
+            summaryCount++;
+            mergeIn(summary);
+            clearBlock();
+        }
+
+        while (summaryCount > 0 && size() > period) {
+            mergeOut(summaries[firstSummary]);
+            firstSummary = (firstSummary + 1) % summaries.length;
+            summaryCount--;
+        }
+    }
+
+    /**
+     * Returns the approximate value of rank round(quantile * size()) (at least 1) in the window.
+     */
+    public double get(double quantile) {
+
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("" + quantile);
+        }
+        int size = size();
+        if (size == 0) {
+            throw new IllegalStateException("Empty");
+        }
+        double rank = Math.max(Math.round(quantile * size), 1);
+
+        //The result is the lowest value whose (weighted) count of lower or equal values reaches the rank.
+        //It is either in the merged summaries, or in the current block, the larger arrays are searched
+        //last, only below the result found so far.
+        double result = Double.NaN;
+        boolean found = false;
+        for (int a = 2; a >= 0; a--) {
+            double[] values = a == 0 ? merged : a == 1 ? levels[0] : upper;
+            int valuesSize = a == 0 ? mergedSize : a == 1 ? levelSizes[0] : upperSize;
+            int low = 0;
+            int high = (found ? upperBound(values, valuesSize, result) : valuesSize) - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (countLowerOrEqual(a, mid, values[mid]) >= rank) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            if (low < valuesSize && (!found || Double.compare(values[low], result) < 0)) {
+                result = values[low];
+                found = true;
+            }
+        }
+
+        if (!found) {
+            //Only due to rounding of the weights, take the highest value
+            for (int a = 0; a < 3; a++) {
+                double[] values = a == 0 ? merged : a == 1 ? levels[0] : upper;
+                int valuesSize = a == 0 ? mergedSize : a == 1 ? levelSizes[0] : upperSize;
+                if (valuesSize > 0 && (!found || Double.compare(values[valuesSize - 1], result) > 0)) {
+                    result = values[valuesSize - 1];
+                    found = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the current block and the summaries, the merged summaries are rebuilt on load.
+     */
+    public void saveState(DataOutput out) throws IOException {
+        out.writeInt(period);
+        out.writeInt(blockSize);
+        out.writeInt(summarySize);
+        out.writeInt(levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            out.writeInt(levelSizes[h]);
+            out.writeInt(compactions[h]);
+            for (int i = 0; i < levelSizes[h]; i++) {
+                out.writeDouble(levels[h][i]);
+            }
+        }
+        out.writeInt(summaryCount);
+        for (int s = 0; s < summaryCount; s++) {
+            double[] summary = summaries[(firstSummary + s) % summaries.length];
+            for (int j = 0; j < summarySize; j++) {
+                out.writeDouble(summary[j]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the content with the state written by {@link #saveState(DataOutput)}
+     * of a sketch with the same period and rank error.
+     */
+    public void loadState(DataInput in) throws IOException {
+        int statePeriod = in.readInt();
+        int stateBlockSize = in.readInt();
+        int stateSummarySize = in.readInt();
+        int stateLevelCount = in.readInt();
+        if (statePeriod != period || stateBlockSize != blockSize || stateSummarySize != summarySize
+                || stateLevelCount != levels.length) {
+            throw new IOException("Incompatible state, period: " + statePeriod + " block size: " + stateBlockSize
+                    + " summary size: " + stateSummarySize + " levels: " + stateLevelCount);
+        }
+        int[] newLevelSizes = new int[levels.length];
+        int[] newCompactions = new int[levels.length];
+        double[][] newLevels = new double[levels.length][];
+        long newBlockFill = 0;
+        for (int h = 0; h < levels.length; h++) {
+            newLevelSizes[h] = in.readInt();
+            if (newLevelSizes[h] < 0 || newLevelSizes[h] >= levelCapacity) {
+                throw new IOException("Corrupted state, level size: " + newLevelSizes[h]);
+            }
+            newCompactions[h] = in.readInt();
+            newLevels[h] = new double[newLevelSizes[h]];
+            for (int i = 0; i < newLevelSizes[h]; i++) {
+                newLevels[h][i] = in.readDouble();
+            }
+            newBlockFill += (long) newLevelSizes[h] << h;
+        }
+        if (newBlockFill >= blockSize) {
+            throw new IOException("Corrupted state, block fill: " + newBlockFill);
+        }
+        int newSummaryCount = in.readInt();
+        if (newSummaryCount < 0 || newSummaryCount > summaries.length) {
+            throw new IOException("Corrupted state, summary count: " + newSummaryCount);
+        }
+        double[][] newSummaries = new double[newSummaryCount][summarySize];
+        for (int s = 0; s < newSummaryCount; s++) {
+            for (int j = 0; j < summarySize; j++) {
+                newSummaries[s][j] = in.readDouble();
+            }
+        }
+
+        for (int h = 0; h < levels.length; h++) {
+            System.arraycopy(newLevels[h], 0, levels[h], 0, newLevelSizes[h]);
+            levelSizes[h] = newLevelSizes[h];
+            compactions[h] = newCompactions[h];
+        }
+        blockFill = (int) newBlockFill;
+        mergeUpper();
+        firstSummary = 0;
+        summaryCount = newSummaryCount;
+        mergedSize = 0;
+        for (int s = 0; s < summaryCount; s++) {
+            System.arraycopy(newSummaries[s], 0, summaries[s], 0, summarySize);
+            mergeIn(summaries[s]);
+        }
+    }
+
+    /**
+     * Weighted count of the values lower or equal to the value at the index of the searched array,
+     * whose own count is given by the index (it is exact for the last of equal values, which is enough for the search).
+     */
+    private double countLowerOrEqual(int array, int index, double d) {
+        return summaryWeight * (array == 0 ? index + 1 : upperBound(merged, mergedSize, d))
+                + (array == 1 ? index + 1 : upperBound(levels[0], levelSizes[0], d))
+                + upperWeight(array == 2 ? index + 1 : upperBound(upper, upperSize, d));
+    }
+
+    private long upperWeight(int count) {
+        return count == 0 ? 0 : upperWeights[count - 1];
+    }
+
+    private static int upperBound(double[] a, int size, double d) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(a[mid], d) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves every other value of an even count of the lowest values of the level to the next one,
+     * alternating the first one taken, so that the rank errors tend to cancel out.
+     */
+    private void compact(int h) {
+        double[] level = levels[h];
+        int size = levelSizes[h];
+        int count = size & ~1;
+        double[] next = levels[h + 1];
+        int nextSize = levelSizes[h + 1];
+
+        int i = count - 2 + (compactions[h]++ & 1);
+        int j = nextSize - 1;
+        int k = nextSize + count / 2 - 1;
+        while (i >= 0) {
+            if (j >= 0 && Double.compare(next[j], level[i]) > 0) {
+                next[k--] = next[j--];
+            } else {
+                next[k--] = level[i];
+                i -= 2;
+            }
+        }
+        levelSizes[h + 1] = nextSize + count / 2;
+
+        System.arraycopy(level, count, level, 0, size - count);
+        levelSizes[h] = size - count;
+
+        if (levelSizes[h + 1] >= levelCapacity) {
+            compact(h + 1);
+        }
+    }
+
+    /**
+     * Fills the summary with the evenly spaced order statistics of the complete block.
+     */
+    private void summarize(double[] summary) {
+        double[] lowest = levels[0];
+        int lowestSize = levelSizes[0];
+        int i = 0;
+        int k = 0;
+        long weight = 0;
+        int j = 0;
+        while (j < summarySize) {
+            double value;
+            if (k >= upperSize || (i < lowestSize && Double.compare(lowest[i], upper[k]) <= 0)) {
+                value = lowest[i++];
+                weight++;
+            } else {
+                value = upper[k];
+                weight += upperWeights[k] - upperWeight(k);
+                k++;
+            }
+            while (j < summarySize && (long) ((j + 0.5) * blockSize / summarySize) < weight) {
+                summary[j++] = value;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the merged levels above the first one, after a compaction.
+     */
+    private void mergeUpper() {
+        int[] positions = new int[levels.length];
+        long weight = 0;
+        upperSize = 0;
+        while (true) {
+            int lowest = -1;
+            for (int h = 1; h < levels.length; h++) {
+                if (positions[h] < levelSizes[h]
+                        && (lowest < 0 || Double.compare(levels[h][positions[h]], levels[lowest][positions[lowest]]) < 0)) {
+                    lowest = h;
+                }
+            }
+            if (lowest < 0) {
+                break;
+            }
+            weight += 1L << lowest;
+            upper[upperSize] = levels[lowest][positions[lowest]++];
+            upperWeights[upperSize++] = weight;
+        }
+    }
+
+    private void clearBlock() {
+        for (int h = 0; h < levels.length; h++) {
+            levelSizes[h] = 0;
+        }
+        upperSize = 0;
+        blockFill = 0;
+    }
+
+    private void mergeIn(double[] summary) {
+        int i = mergedSize - 1;
+        int j = summarySize - 1;
+        int k = mergedSize + summarySize - 1;
+        while (j >= 0) {
+            if (i >= 0 && Double.compare(merged[i], summary[j]) > 0) {
+                merged[k--] = merged[i--];
+            } else {
+                merged[k--] = summary[j--];
+            }
+        }
+        mergedSize += summarySize;
+    }
+
+    private void mergeOut(double[] summary) {
+        int j = 0;
+        int k = 0;
+        for (int i = 0; i < mergedSize; i++) {
+            if (j < summarySize && Double.compare(merged[i], summary[j]) == 0) {
+                j++;
+            } else {
+                merged[k++] = merged[i];
+            }
+        }
+        mergedSize = k;
+    }
+}
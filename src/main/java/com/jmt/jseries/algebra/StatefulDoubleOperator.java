@@ -0,0 +1,111 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Primitive counterpart of the dirty functions: a stateful operator over a stream of doubles,
+ * the result of every step depends on the previous inputs.
+ * The bulk {@link #apply(double[], int, int, double[])} runs the steps in a tight loop without boxing.
+ * The implementations override it, at least with a copy of the default loop, so that the call of next() is monomorphic.
+ * Like the dirty functions, operators are not thread-safe and every sequence needs its own instance.
+ * <p>
+ * The operators from DirtyFunctions can save their state into a compact binary checkpoint,
+ * and an operator created with the same parameters can load it and continue where the saved one stopped,
+ * with exactly the same results, e.g. after a restart without replaying the history.
+ */
+public interface StatefulDoubleOperator {
+
+    double next(double x);
+
+    /**
+     * Applies {@link #next(double)} to in[off .. off + len) in order, writing the results to out at the same indices.
+     * The arrays may be the same, to transform the values in place.
+     */
+    default void apply(double[] in, int off, int len, double[] out) {
+        for (int i = off; i < off + len; i++) {
+            out[i] = next(in[i]);
+        }
+    }
+
+    /**
+     * Writes the state of the operator. The parameters are written just to check them on load.
+     * @throws UnsupportedOperationException if the operator does not support checkpoints
+     */
+    default void saveState(DataOutput out) throws IOException {
+        throw new UnsupportedOperationException(getClass().getName());
+    }
+
+    /**
+     * Replaces the state of the operator with the state written by {@link #saveState(DataOutput)}
+     * of an operator of the same kind and with the same parameters.
+     * The state is not changed if the checkpoint cannot be loaded.
+     * @throws IOException if the state is corrupted or it belongs to a different operator
+     * @throws UnsupportedOperationException if the operator does not support checkpoints
+     */
+    default void loadState(DataInput in) throws IOException {
+        throw new UnsupportedOperationException(getClass().getName());
+    }
+
+    default byte[] saveState() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            saveState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    default void loadState(byte[] state) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(state);
+        byte[] previous = saveState();
+        loadState(new DataInputStream(bytes));
+        if (bytes.available() > 0) {
+            //The unexpected bytes are found only after loading, the previous state is restored
+            int unexpected = bytes.available();
+            loadState(new DataInputStream(new ByteArrayInputStream(previous)));
+            throw new IOException("Corrupted state, unexpected bytes: " + unexpected);
+        }
+    }
+
+    /**
+     * Adapter to the Function API, e.g. for {@link com.jmt.jseries.Series#mapValues(Function)}.
+     */
+    default Function<Double, Double> asFunction() {
+        return this::next;
+    }
+
+    /**
+     * Adapter of a dirty function, it boxes every step.
+     */
+    static StatefulDoubleOperator of(Function<Double, Double> function) {
+        return function::apply;
+    }
+
+    static StatefulDoubleOperator identity() {
+        return DirtyFunctions.identity(DirtyFunctions.IDENTITY, 0);
+    }
+}
@@ -20,22 +20,22 @@ import com.jmt.jseries.Series;
 public class Unary {
 
     public static <T extends Comparable<T>> Series<T, Double> minus(Series<T, Double> op) {
-        return op.mapValues(x -> -x).withName("Minus(" + op.name() + ")");
+        return op.mapValuesParallel(x -> -x).withName("Minus(" + op.name() + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> abs(Series<T, Double> op) {
-        return op.mapValues(Math::abs).withName("Abs(" + op.name() + ")");
+        return op.mapValuesParallel(Math::abs).withName("Abs(" + op.name() + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sqr(Series<T, Double> op) {
-        return op.mapValues(x -> x * x).withName("Sqr(" + op.name() + ")");
+        return op.mapValuesParallel(x -> x * x).withName("Sqr(" + op.name() + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sqrt(Series<T, Double> op) {
-        return op.mapValues(Math::sqrt).withName("Sqrt(" + op.name() + ")");
+        return op.mapValuesParallel(Math::sqrt).withName("Sqrt(" + op.name() + ")");
     }
 
     public static <T extends Comparable<T>> Series<T, Double> sgn(Series<T, Double> op) {
-        return op.mapValues(Math::signum).withName("Sgn(" + op.name() + ")");
+        return op.mapValuesParallel(Math::signum).withName("Sgn(" + op.name() + ")");
     }
 }
@@ -47,6 +47,19 @@ public interface Array<T> extends Serializable {
         return result;
     }
 
+    /**
+     * Returns the elements from..toExcl. The implementations backed by Java arrays return views
+     * sharing the data without copying, the default implementation copies the range.
+     */
+    default Array<T> slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size());
+        ArrayBuilder<T, ? extends Array<T>> builder = newBuilder(toExcl - from);
+        for (int i = from; i < toExcl; i++) {
+            builder.add(get(i));
+        }
+        return builder.build();
+    }
+
     default ArrayBuilder<T, ? extends Array<T>> newBuilder(int sizeHint) {
         return GenericArray.builder(sizeHint);
     }
@@ -17,87 +17,288 @@ package com.jmt.jseries.array;
 
 import java.util.Arrays;
 
+/**
+ * Binary search in sorted arrays. The range versions search only in a[from..toExcl)
+ * and return indices into the whole array.
+ */
 public class ArraySearchUtil {
 
     public static int findGE(long[] a, long x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 1;
-        }
-        return index;
+        return findGE(a, 0, a.length, x);
     }
 
     public static int findGT(long[] a, long x) {
-        int index = find(a, x);
-        int length = a.length;
-        if (index < 0) {
-            index = -index - 1;
-        } else {
-            while (index < length && a[index] == x) index++;
-        }
-        return index;
+        return findGT(a, 0, a.length, x);
     }
 
     public static int findLT(long[] a, long x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 2;
-        } else {
-            while (index >= 0 && a[index] == x) index--;
-        }
-        return index;
+        return findLT(a, 0, a.length, x);
     }
 
     public static int findLE(long[] a, long x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 2;
-        }
-        return index;
+        return findLE(a, 0, a.length, x);
     }
 
     public static int find(long[] a, long x) {
-        return Arrays.binarySearch(a, x);
+        return find(a, 0, a.length, x);
     }
 
-    public static <T> int findGE(T[] a, T x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 1;
+    public static int findGE(long[] a, int from, int toExcl, long x) {
+        return lowerBound(a, from, toExcl, x);
+    }
+
+    public static int findGT(long[] a, int from, int toExcl, long x) {
+        return upperBound(a, from, toExcl, x);
+    }
+
+    public static int findLT(long[] a, int from, int toExcl, long x) {
+        return lowerBound(a, from, toExcl, x) - 1;
+    }
+
+    /**
+     * Returns the last of duplicate elements.
+     */
+    public static int findLE(long[] a, int from, int toExcl, long x) {
+        return upperBound(a, from, toExcl, x) - 1;
+    }
+
+    /**
+     * Same contract as {@link Arrays#binarySearch(long[], int, int, long)},
+     * but returns the first of duplicate elements.
+     */
+    public static int find(long[] a, int from, int toExcl, long x) {
+        int index = lowerBound(a, from, toExcl, x);
+        return index < toExcl && a[index] == x ? index : -index - 1;
+    }
+
+    public static int lowerBound(long[] a, long x) {
+        return lowerBound(a, 0, a.length, x);
+    }
+
+    public static int upperBound(long[] a, long x) {
+        return upperBound(a, 0, a.length, x);
+    }
+
+    public static int[] equalRange(long[] a, long x) {
+        return equalRange(a, 0, a.length, x);
+    }
+
+    /**
+     * The first index in from..toExcl with an element greater than or equal to x, or toExcl.
+     */
+    public static int lowerBound(long[] a, int from, int toExcl, long x) {
+        int low = from;
+        int high = toExcl;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        return index;
+        return low;
     }
 
-    public static <T> int findGT(T[] a, T x) {
-        int index = find(a, x);
-        int length = a.length;
-        if (index < 0) {
-            index = -index - 1;
-        } else {
-            while (index < length && a[index].equals(x)) index++;
+    /**
+     * The first index in from..toExcl with an element greater than x, or toExcl.
+     */
+    public static int upperBound(long[] a, int from, int toExcl, long x) {
+        int low = from;
+        int high = toExcl;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        return index;
+        return low;
     }
 
-    public static <T> int findLT(T[] a, T x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 2;
-        } else {
-            while (index >= 0 && a[index].equals(x)) index--;
+    /**
+     * The range of elements equal to x, as {lowerBound, upperBound}. It is empty if there is no such element.
+     */
+    public static int[] equalRange(long[] a, int from, int toExcl, long x) {
+        int lower = lowerBound(a, from, toExcl, x);
+        return new int[]{lower, upperBound(a, lower, toExcl, x)};
+    }
+
+    /**
+     * Batch version of findLE for queries in ascending order: out[k] is the index of the last element
+     * of a lower or equal to queries[k], or -1. The array is walked with a galloping cursor,
+     * so the whole batch takes O(q log(n/q)) comparisons for q queries instead of O(q log n).
+     */
+    public static void findLE(long[] a, long[] queries, int[] out) {
+        findLE(a, 0, a.length, queries, out);
+    }
+
+    public static void findLE(long[] a, int from, int toExcl, long[] queries, int[] out) {
+        if (out.length < queries.length) {
+            throw new IllegalArgumentException(queries.length + " " + out.length);
+        }
+        int cursor = from;
+        for (int k = 0; k < queries.length; k++) {
+            long x = queries[k];
+            if (k > 0 && x < queries[k - 1]) {
+                throw new IllegalArgumentException("The queries are not in ascending order. position: " + k + " values: " + queries[k - 1] + " " + x);
+            }
+            if (cursor < toExcl && a[cursor] <= x) {
+                cursor = gallop(a, cursor, toExcl, x);
+            }
+            out[k] = cursor - 1;
         }
-        return index;
     }
 
-    public static <T> int findLE(T[] a, T x) {
-        int index = find(a, x);
-        if (index < 0) {
-            index = -index - 2;
+    /**
+     * findLE with a hint, typically the result of the previous search with a lower or equal x.
+     * Returns the last of duplicate elements. The search gallops forward from the hint,
+     * so a sequence of searches with increasing x takes amortized O(log distance) per search.
+     * If x is lower than the element at the hint, it falls back to the full binary search.
+     */
+    public static int findLE(long[] a, int from, int toExcl, long x, int hint) {
+        int start = Math.max(hint, from);
+        if (start >= toExcl || a[start] > x) {
+            return hint < from ? from - 1 : findGT(a, from, toExcl, x) - 1;
+        }
+        return gallop(a, start, toExcl, x) - 1;
+    }
+
+    /**
+     * The first element greater than x, given a[low] <= x.
+     */
+    private static int gallop(long[] a, int low, int toExcl, long x) {
+        //Gallop to a[low] <= x, and a[high] > x or high == toExcl
+        int step = 1;
+        while (step < toExcl - low && a[low + step] <= x) {
+            low += step;
+            step <<= 1;
+        }
+        int high = step < toExcl - low ? low + step : toExcl;
+        return upperBound(a, low + 1, high, x);
+    }
+
+    public static <T extends Comparable<? super T>> int findLE(T[] a, int from, int toExcl, T x, int hint) {
+        int start = Math.max(hint, from);
+        if (start >= toExcl || a[start].compareTo(x) > 0) {
+            return hint < from ? from - 1 : findGT(a, from, toExcl, x) - 1;
+        }
+        return gallop(a, start, toExcl, x) - 1;
+    }
+
+    /**
+     * The first element greater than x, given a[low] <= x.
+     */
+    private static <T extends Comparable<? super T>> int gallop(T[] a, int low, int toExcl, T x) {
+        //Gallop to a[low] <= x, and a[high] > x or high == toExcl
+        int step = 1;
+        while (step < toExcl - low && a[low + step].compareTo(x) <= 0) {
+            low += step;
+            step <<= 1;
         }
-        return index;
+        int high = step < toExcl - low ? low + step : toExcl;
+        return upperBound(a, low + 1, high, x);
+    }
+
+    public static <T> int findGE(T[] a, T x) {
+        return findGE(a, 0, a.length, x);
+    }
+
+    public static <T> int findGT(T[] a, T x) {
+        return findGT(a, 0, a.length, x);
+    }
+
+    public static <T> int findLT(T[] a, T x) {
+        return findLT(a, 0, a.length, x);
+    }
+
+    public static <T> int findLE(T[] a, T x) {
+        return findLE(a, 0, a.length, x);
     }
 
     public static <T> int find(T[] a, T x) {
-        return Arrays.binarySearch(a, x);
+        return find(a, 0, a.length, x);
+    }
+
+    public static <T> int findGE(T[] a, int from, int toExcl, T x) {
+        return lowerBound(a, from, toExcl, x);
+    }
+
+    public static <T> int findGT(T[] a, int from, int toExcl, T x) {
+        return upperBound(a, from, toExcl, x);
+    }
+
+    public static <T> int findLT(T[] a, int from, int toExcl, T x) {
+        return lowerBound(a, from, toExcl, x) - 1;
+    }
+
+    /**
+     * Returns the last of duplicate elements.
+     */
+    public static <T> int findLE(T[] a, int from, int toExcl, T x) {
+        return upperBound(a, from, toExcl, x) - 1;
+    }
+
+    /**
+     * Same contract as {@link Arrays#binarySearch(Object[], int, int, Object)},
+     * but returns the first of duplicate elements.
+     */
+    public static <T> int find(T[] a, int from, int toExcl, T x) {
+        int index = lowerBound(a, from, toExcl, x);
+        return index < toExcl && compare(a[index], x) == 0 ? index : -index - 1;
+    }
+
+    public static <T> int lowerBound(T[] a, T x) {
+        return lowerBound(a, 0, a.length, x);
+    }
+
+    public static <T> int upperBound(T[] a, T x) {
+        return upperBound(a, 0, a.length, x);
+    }
+
+    public static <T> int[] equalRange(T[] a, T x) {
+        return equalRange(a, 0, a.length, x);
+    }
+
+    public static <T> int lowerBound(T[] a, int from, int toExcl, T x) {
+        int low = from;
+        int high = toExcl;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(a[mid], x) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static <T> int upperBound(T[] a, int from, int toExcl, T x) {
+        int low = from;
+        int high = toExcl;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(a[mid], x) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static <T> int[] equalRange(T[] a, int from, int toExcl, T x) {
+        int lower = lowerBound(a, from, toExcl, x);
+        return new int[]{lower, upperBound(a, lower, toExcl, x)};
+    }
+
+    /**
+     * The elements are compared by their natural order, as in {@link Arrays#binarySearch(Object[], Object)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(T element, T x) {
+        return ((Comparable<? super T>) element).compareTo(x);
     }
 }
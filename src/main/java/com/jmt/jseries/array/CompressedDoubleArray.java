@@ -0,0 +1,278 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Function;
+
+/**
+ * Read-only array of doubles compressed with XOR encoding, as in the Gorilla time series database.
+ * <p>
+ * Every value is XORed with the previous one, slowly changing values give XORs with long runs of zero bits.
+ * A repeated value takes a single bit, otherwise only the meaningful bits of the XOR are stored,
+ * reusing the window of leading and trailing zeros of the previous value if possible.
+ * <p>
+ * The elements are split into blocks starting with a raw value at a known bit offset,
+ * so random access decodes a single block. For sequential processing use {@link #doubleIterator()},
+ * {@link #getDoubles(int, int, double[], int)} or map, which decode every block once.
+ */
+public final class CompressedDoubleArray implements PrimitiveDoubleArray {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int size;
+
+    private final int blockSize;
+
+    /**
+     * Bit offset of every block in the bit stream.
+     */
+    private final long[] blockOffset;
+
+    /**
+     * The bit stream, from the most significant bit of every word.
+     */
+    private final long[] words;
+
+    public static CompressedDoubleArray of(double... values) {
+        return of(DEFAULT_BLOCK_SIZE, DoubleArray.ofNoClone(values));
+    }
+
+    public static CompressedDoubleArray of(Array<Double> values) {
+        return of(DEFAULT_BLOCK_SIZE, values);
+    }
+
+    public static CompressedDoubleArray of(int blockSize, Array<Double> values) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("" + blockSize);
+        }
+        PrimitiveDoubleArray array = PrimitiveDoubleArray.of(values);
+        int size = array.size();
+        long[] blockOffset = new long[(size + blockSize - 1) / blockSize];
+        BitWriter writer = new BitWriter(size);
+        long previous = 0;
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 0; i < size; i++) {
+            long bits = Double.doubleToRawLongBits(array.getDouble(i));
+            if (i % blockSize == 0) {
+                blockOffset[i / blockSize] = writer.position;
+                writer.write(bits, 64);
+                leading = -1;
+            } else {
+                long xor = bits ^ previous;
+                if (xor == 0) {
+                    writer.write(0, 1);
+                } else {
+                    int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                    int newTrailing = Long.numberOfTrailingZeros(xor);
+                    if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                        //Fits into the previous window
+                        writer.write(0b10, 2);
+                        writer.write(xor >>> trailing, 64 - leading - trailing);
+                    } else {
+                        int length = 64 - newLeading - newTrailing;
+                        writer.write(0b11, 2);
+                        writer.write(newLeading, 5);
+                        writer.write(length - 1, 6);
+                        writer.write(xor >>> newTrailing, length);
+                        leading = newLeading;
+                        trailing = newTrailing;
+                    }
+                }
+            }
+            previous = bits;
+        }
+        return new CompressedDoubleArray(size, blockSize, blockOffset, writer.toWords());
+    }
+
+    private CompressedDoubleArray(int size, int blockSize, long[] blockOffset, long[] words) {
+        this.size = size;
+        this.blockSize = blockSize;
+        this.blockOffset = blockOffset;
+        this.words = words;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Size of the compressed data in bytes, without the block index.
+     */
+    public int compressedSize() {
+        return words.length * 8;
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        Decoder decoder = new Decoder(index / blockSize);
+        for (int i = index % blockSize; i > 0; i--) {
+            decoder.next();
+        }
+        return Double.longBitsToDouble(decoder.value);
+    }
+
+    @Override
+    public void getDoubles(int srcBegin, int srcEnd, double[] dst, int dstBegin) {
+        if (srcBegin < 0 || srcEnd > size || srcBegin > srcEnd) {
+            throw new ArrayIndexOutOfBoundsException(srcBegin + " " + srcEnd);
+        }
+        if (srcBegin == srcEnd) {
+            return;
+        }
+        Decoder decoder = new Decoder(srcBegin / blockSize);
+        for (int i = srcBegin % blockSize; i > 0; i--) {
+            decoder.next();
+        }
+        int j = dstBegin;
+        dst[j++] = Double.longBitsToDouble(decoder.value);
+        for (int i = srcBegin + 1; i < srcEnd; i++) {
+            if (i % blockSize == 0) {
+                decoder = new Decoder(i / blockSize);
+            } else {
+                decoder.next();
+            }
+            dst[j++] = Double.longBitsToDouble(decoder.value);
+        }
+    }
+
+    /**
+     * Decodes the elements sequentially, every block is decoded only once.
+     */
+    public PrimitiveIterator.OfDouble doubleIterator() {
+        return new PrimitiveIterator.OfDouble() {
+
+            private int index;
+            private Decoder decoder;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public double nextDouble() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (index % blockSize == 0) {
+                    decoder = new Decoder(index / blockSize);
+                } else {
+                    decoder.next();
+                }
+                index++;
+                return Double.longBitsToDouble(decoder.value);
+            }
+        };
+    }
+
+    @Override
+    public <R> Array<R> map(ArrayBuilder<R, ? extends Array<R>> resultBuilder, Function<? super Double, ? extends R> mapper) {
+        PrimitiveIterator.OfDouble iterator = doubleIterator();
+        while (iterator.hasNext()) {
+            resultBuilder.add(mapper.apply(iterator.nextDouble()));
+        }
+        return resultBuilder.build();
+    }
+
+    @Override
+    public DoubleArray.DoubleArrayBuilder newBuilder(int sizeHint) {
+        return DoubleArray.builder(sizeHint);
+    }
+
+    /**
+     * Decodes a block element by element, starting at its first element.
+     */
+    private final class Decoder {
+
+        private long position;
+        private long value;
+        private int leading;
+        private int trailing;
+
+        private Decoder(int block) {
+            position = blockOffset[block];
+            value = read(64);
+        }
+
+        private void next() {
+            if (read(1) == 0) {
+                return;
+            }
+            if (read(1) == 1) {
+                leading = (int) read(5);
+                trailing = 64 - leading - ((int) read(6) + 1);
+            }
+            value ^= read(64 - leading - trailing) << trailing;
+        }
+
+        private long read(int bits) {
+            int word = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            position += bits;
+            int first = 64 - offset;
+            if (bits <= first) {
+                return (words[word] << offset) >>> (64 - bits);
+            }
+            int rest = bits - first;
+            return (words[word] << offset >>> offset) << rest | words[word + 1] >>> (64 - rest);
+        }
+    }
+
+    private static final class BitWriter {
+
+        private long[] words;
+        private long position;
+
+        private BitWriter(int sizeHint) {
+            words = new long[Math.max(4, sizeHint / 4)];
+        }
+
+        /**
+         * Appends the lowest bits of the value, 1 to 64 bits.
+         */
+        private void write(long value, int bits) {
+            int word = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, DoubleArray.newCapacity(words.length));
+            }
+            long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+            int first = 64 - offset;
+            if (bits <= first) {
+                words[word] |= masked << (first - bits);
+            } else {
+                int rest = bits - first;
+                words[word] |= masked >>> rest;
+                words[word + 1] |= masked << (64 - rest);
+            }
+            position += bits;
+        }
+
+        private long[] toWords() {
+            return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+        }
+    }
+}
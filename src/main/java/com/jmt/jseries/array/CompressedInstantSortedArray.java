@@ -0,0 +1,313 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Function;
+
+/**
+ * Sorted array of instants compressed with delta-of-delta encoding.
+ * <p>
+ * The elements are split into blocks. The first element of every block is stored as an absolute value
+ * in a sparse index, the others as the difference between successive deltas, zigzag encoded into varints.
+ * Nearly regular timestamps take about 1 byte per element.
+ * <p>
+ * The searches do a binary search over the blocks and a scan of a single block.
+ * Random access by index decodes the block up to the element, for sequential processing
+ * use {@link #millisIterator()}, {@link #toMillisArray()} or map, which decode every block once.
+ */
+public final class CompressedInstantSortedArray implements PrimitiveInstantSortedArray {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int size;
+
+    private final int blockSize;
+
+    /**
+     * The first element of every block.
+     */
+    private final long[] blockStart;
+
+    /**
+     * Offset of every block in data. The first element of the block is not in data.
+     */
+    private final int[] blockOffset;
+
+    private final byte[] data;
+
+    public static CompressedInstantSortedArray ofMillis(long... values) {
+        return ofMillis(DEFAULT_BLOCK_SIZE, values);
+    }
+
+    public static CompressedInstantSortedArray ofMillis(int blockSize, long... values) {
+        return of(blockSize, InstantSortedArray.ofMillisNoClone(values));
+    }
+
+    public static CompressedInstantSortedArray of(SortedArray<Instant> values) {
+        return of(DEFAULT_BLOCK_SIZE, values);
+    }
+
+    public static CompressedInstantSortedArray of(int blockSize, SortedArray<Instant> values) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("" + blockSize);
+        }
+        PrimitiveInstantSortedArray array = PrimitiveInstantSortedArray.of(values);
+        int size = array.size();
+        int blocks = (size + blockSize - 1) / blockSize;
+        long[] blockStart = new long[blocks];
+        int[] blockOffset = new int[blocks];
+        byte[] data = new byte[Math.max(16, size)];
+        int position = 0;
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < size; i++) {
+            long value = array.getMillis(i);
+            if (i > 0 && value < previous) {
+                throw new IllegalArgumentException("The array is not in ascending order. position: " + i + " values: " + previous + " " + value);
+            }
+            if (i % blockSize == 0) {
+                blockStart[i / blockSize] = value;
+                blockOffset[i / blockSize] = position;
+                previousDelta = 0;
+            } else {
+                long delta = value - previous;
+                long zigzag = (delta - previousDelta) << 1 ^ (delta - previousDelta) >> 63;
+                if (data.length - position < 10) {
+                    data = Arrays.copyOf(data, DoubleArray.newCapacity(data.length));
+                }
+                while ((zigzag & ~0x7FL) != 0) {
+                    data[position++] = (byte) (zigzag & 0x7F | 0x80);
+                    zigzag >>>= 7;
+                }
+                data[position++] = (byte) zigzag;
+                previousDelta = delta;
+            }
+            previous = value;
+        }
+        return new CompressedInstantSortedArray(size, blockSize, blockStart, blockOffset, Arrays.copyOf(data, position));
+    }
+
+    private CompressedInstantSortedArray(int size, int blockSize, long[] blockStart, int[] blockOffset, byte[] data) {
+        this.size = size;
+        this.blockSize = blockSize;
+        this.blockStart = blockStart;
+        this.blockOffset = blockOffset;
+        this.data = data;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Size of the compressed data in bytes, without the sparse index.
+     */
+    public int compressedSize() {
+        return data.length;
+    }
+
+    @Override
+    public long getMillis(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        Decoder decoder = new Decoder(index / blockSize);
+        for (int i = index % blockSize; i > 0; i--) {
+            decoder.next();
+        }
+        return decoder.value;
+    }
+
+    /**
+     * Returns the first of duplicate elements.
+     */
+    @Override
+    public int find(long millis) {
+        int index = findGE(millis);
+        return index < size && getMillis(index) == millis ? index : -index - 1;
+    }
+
+    @Override
+    public int findGE(long millis) {
+        return findLT(millis) + 1;
+    }
+
+    @Override
+    public int findGT(long millis) {
+        return findLE(millis) + 1;
+    }
+
+    /**
+     * Returns the last of duplicate elements.
+     */
+    @Override
+    public int findLE(long millis) {
+        //The last block starting at or before millis, the following blocks start after it
+        int block = ArraySearchUtil.findGT(blockStart, millis) - 1;
+        return block < 0 ? -1 : scanBlock(block, millis, true);
+    }
+
+    @Override
+    public int findLT(long millis) {
+        int block = ArraySearchUtil.findLT(blockStart, millis);
+        return block < 0 ? -1 : scanBlock(block, millis, false);
+    }
+
+    /**
+     * Index of the last element of the block which is lower than (or equal to, if inclusive) millis.
+     * The first element of the block must satisfy the condition.
+     */
+    private int scanBlock(int block, long millis, boolean inclusive) {
+        Decoder decoder = new Decoder(block);
+        int index = block * blockSize;
+        int end = Math.min(size, index + blockSize);
+        while (index + 1 < end) {
+            long next = decoder.next();
+            if (inclusive ? next > millis : next >= millis) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Decodes the elements sequentially, every block is decoded only once.
+     */
+    public PrimitiveIterator.OfLong millisIterator() {
+        return new PrimitiveIterator.OfLong() {
+
+            private int index;
+            private Decoder decoder;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                long value;
+                if (index % blockSize == 0) {
+                    decoder = new Decoder(index / blockSize);
+                    value = decoder.value;
+                } else {
+                    value = decoder.next();
+                }
+                index++;
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public long[] toMillisArray() {
+        long[] result = new long[size];
+        PrimitiveIterator.OfLong iterator = millisIterator();
+        for (int i = 0; i < size; i++) {
+            result[i] = iterator.nextLong();
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the range into an InstantSortedArray.
+     */
+    @Override
+    public InstantSortedArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        long[] result = new long[toExcl - from];
+        if (result.length > 0) {
+            Decoder decoder = new Decoder(from / blockSize);
+            for (int i = from % blockSize; i > 0; i--) {
+                decoder.next();
+            }
+            result[0] = decoder.value;
+            for (int i = from + 1; i < toExcl; i++) {
+                if (i % blockSize == 0) {
+                    decoder = new Decoder(i / blockSize);
+                    result[i - from] = decoder.value;
+                } else {
+                    result[i - from] = decoder.next();
+                }
+            }
+        }
+        return InstantSortedArray.ofMillisNoClone(result);
+    }
+
+    @Override
+    public <R> Array<R> map(ArrayBuilder<R, ? extends Array<R>> resultBuilder, Function<? super Instant, ? extends R> mapper) {
+        PrimitiveIterator.OfLong iterator = millisIterator();
+        while (iterator.hasNext()) {
+            resultBuilder.add(mapper.apply(Instant.ofEpochMilli(iterator.nextLong())));
+        }
+        return resultBuilder.build();
+    }
+
+    @Override
+    public <R extends Comparable<R>> SortedArray<R> mapSorted(ArrayBuilder<R, ? extends SortedArray<R>> resultBuilder,
+                                                             Function<? super Instant, ? extends R> mapper) {
+        PrimitiveIterator.OfLong iterator = millisIterator();
+        while (iterator.hasNext()) {
+            resultBuilder.add(mapper.apply(Instant.ofEpochMilli(iterator.nextLong())));
+        }
+        return resultBuilder.build();
+    }
+
+    @Override
+    public InstantSortedArray.SortedInstantArrayBuilder newSortedBuilder(int sizeHint) {
+        return InstantSortedArray.builder(sizeHint);
+    }
+
+    /**
+     * Decodes a block element by element, starting at its first element.
+     */
+    private final class Decoder {
+
+        private int position;
+        private long value;
+        private long delta;
+
+        private Decoder(int block) {
+            position = blockOffset[block];
+            value = blockStart[block];
+        }
+
+        private long next() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            delta += zigzag >>> 1 ^ -(zigzag & 1);
+            value += delta;
+            return value;
+        }
+    }
+}
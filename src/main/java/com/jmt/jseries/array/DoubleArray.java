@@ -15,10 +15,11 @@
 */
 package com.jmt.jseries.array;
 
-import java.util.ArrayList;
+import java.io.ObjectStreamException;
+import java.util.Arrays;
 import java.util.Collection;
 
-public final class DoubleArray implements Array<Double> {
+public final class DoubleArray implements PrimitiveDoubleArray {
 
     private static final long serialVersionUID = 1L;
 
@@ -74,49 +75,129 @@ public final class DoubleArray implements Array<Double> {
         return result;
     }
 
-    public static ArrayBuilder<Double, Array<Double>> builder(int sizeHint) {
+    public static DoubleArrayBuilder builder(int sizeHint) {
         return new DoubleArrayBuilder(sizeHint);
     }
 
     private final double[] values;
 
+    /**
+     * A slice is a view of the range offset..offset+size of the values. Serialized arrays are never slices.
+     */
+    private final transient int offset;
+
+    private final transient int size;
+
     private DoubleArray(boolean clone, double... values) {
-        this.values = clone ? values.clone() : values;
+        this(clone ? values.clone() : values, 0, values.length);
+    }
+
+    private DoubleArray(double[] values, int offset, int size) {
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
     }
 
     @Override
     public int size() {
-        return values.length;
+        return size;
     }
 
     @Override
     public Double get(int index) {
-        return values[index];
+        return getDouble(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return values[offset + index];
+    }
+
+    @Override
+    public void getDoubles(int srcBegin, int srcEnd, double[] dst, int dstBegin) {
+        SliceUtil.checkRange(srcBegin, srcEnd, size);
+        System.arraycopy(values, offset + srcBegin, dst, dstBegin, srcEnd - srcBegin);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        return Arrays.copyOfRange(values, offset, offset + size);
+    }
+
+    /**
+     * Returns a view of the range, sharing the values without copying.
+     */
+    @Override
+    public DoubleArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        return new DoubleArray(values, offset + from, toExcl - from);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return offset == 0 && size == values.length ? this : ofNoClone(toDoubleArray());
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return new DoubleArray(values, 0, values.length);
     }
 
     @Override
-    public ArrayBuilder<Double, ? extends Array<Double>> newBuilder(int sizeHint) {
+    public DoubleArrayBuilder newBuilder(int sizeHint) {
         return new DoubleArrayBuilder(sizeHint);
     }
 
-    private static class DoubleArrayBuilder implements ArrayBuilder<Double, Array<Double>> {
+    /**
+     * Collects primitive doubles into a growable double[].
+     * If the size hint was exact, the internal array is handed over to the result without copying.
+     */
+    public static final class DoubleArrayBuilder implements ArrayBuilder<Double, Array<Double>> {
 
-        //TODO Use an efficient primitive collection?
-        private final ArrayList<Double> list;
+        private double[] values;
+        private int size;
 
         private DoubleArrayBuilder(int sizeHint) {
-            list = new ArrayList<>(sizeHint);
+            if (sizeHint < 0) {
+                throw new IllegalArgumentException("" + sizeHint);
+            }
+            values = new double[sizeHint];
         }
 
         @Override
-        public ArrayBuilder<Double, Array<Double>> add(Double value) {
-            list.add(value);
+        public DoubleArrayBuilder add(Double value) {
+            return add(value.doubleValue());
+        }
+
+        public DoubleArrayBuilder add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, newCapacity(size));
+            }
+            values[size++] = value;
             return this;
         }
 
+        public int size() {
+            return size;
+        }
+
         @Override
-        public Array<Double> build() {
-            return DoubleArray.of(list);
+        public DoubleArray build() {
+            //Once the array is handed over, any further add() must grow into a fresh copy
+            double[] result = size == values.length ? values : Arrays.copyOf(values, size);
+            values = result;
+            return ofNoClone(result);
+        }
+    }
+
+    /**
+     * Capacity of a growable array that is full at the given size, about 1.5 times the size.
+     */
+    public static int newCapacity(int size) {
+        if (size == Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Array too large: " + size);
         }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(8L, size + (size >> 1) + 1L));
     }
 }
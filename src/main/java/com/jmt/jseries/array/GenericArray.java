@@ -15,7 +15,9 @@
 */
 package com.jmt.jseries.array;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 public final class GenericArray<T> implements Array<T> {
@@ -47,18 +49,51 @@ public final class GenericArray<T> implements Array<T> {
 
     private final T[] values;
 
+    /**
+     * A slice is a view of the range offset..offset+size of the values. Serialized arrays are never slices.
+     */
+    private final transient int offset;
+
+    private final transient int size;
+
     private GenericArray(boolean clone, T[] values) {
-        this.values = clone ? values.clone() : values;
+        this(clone ? values.clone() : values, 0, values.length);
+    }
+
+    private GenericArray(T[] values, int offset, int size) {
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
     }
 
     @Override
     public int size() {
-        return values.length;
+        return size;
     }
 
     @Override
     public T get(int index) {
-        return values[index];
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return values[offset + index];
+    }
+
+    /**
+     * Returns a view of the range, sharing the values without copying.
+     */
+    @Override
+    public GenericArray<T> slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        return new GenericArray<>(values, offset + from, toExcl - from);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return offset == 0 && size == values.length ? this : ofNoClone(Arrays.copyOfRange(values, offset, offset + size));
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return new GenericArray<>(values, 0, values.length);
     }
 
     private static class GenericArrayBuilder<T> implements ArrayBuilder<T, Array<T>> {
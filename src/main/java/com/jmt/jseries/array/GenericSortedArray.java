@@ -15,7 +15,9 @@
 */
 package com.jmt.jseries.array;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 public final class GenericSortedArray<T extends Comparable<T>> implements SortedArray<T> {
@@ -47,9 +49,24 @@ public final class GenericSortedArray<T extends Comparable<T>> implements Sorted
         return new SortedGenericArrayBuilder<>(sizeHint);
     }
 
+    /**
+     * A slice is a view of the range offset..offset+size of the values. Serialized arrays are never slices.
+     */
+    private final transient int offset;
+
+    private final transient int size;
+
     private GenericSortedArray(boolean clone, T[] values) {
         checkOrder(values);
         this.values = clone ? values.clone() : values;
+        this.offset = 0;
+        this.size = values.length;
+    }
+
+    private GenericSortedArray(T[] values, int offset, int size) {
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
     }
 
     private void checkOrder(T[] values) {
@@ -62,37 +79,62 @@ public final class GenericSortedArray<T extends Comparable<T>> implements Sorted
 
     @Override
     public int size() {
-        return values.length;
+        return size;
     }
 
     @Override
     public T get(int index) {
-        return values[index];
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return values[offset + index];
     }
 
     @Override
     public int find(T x) {
-        return ArraySearchUtil.find(values, x);
+        return SliceUtil.relative(ArraySearchUtil.find(values, offset, offset + size, x), offset);
     }
 
     @Override
     public int findGE(T x) {
-        return ArraySearchUtil.findGE(values, x);
+        return ArraySearchUtil.findGE(values, offset, offset + size, x) - offset;
     }
 
     @Override
     public int findGT(T x) {
-        return ArraySearchUtil.findGT(values, x);
+        return ArraySearchUtil.findGT(values, offset, offset + size, x) - offset;
     }
 
     @Override
     public int findLE(T x) {
-        return ArraySearchUtil.findLE(values, x);
+        return ArraySearchUtil.findLE(values, offset, offset + size, x) - offset;
     }
 
     @Override
     public int findLT(T x) {
-        return ArraySearchUtil.findLT(values, x);
+        return ArraySearchUtil.findLT(values, offset, offset + size, x) - offset;
+    }
+
+    @Override
+    public int findLE(T x, int hint) {
+        return ArraySearchUtil.findLE(values, offset, offset + size, x, hint + offset) - offset;
+    }
+
+    /**
+     * Returns a view of the range, sharing the values without copying.
+     */
+    @Override
+    public GenericSortedArray<T> slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        return new GenericSortedArray<>(values, offset + from, toExcl - from);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return offset == 0 && size == values.length ? this : ofNoClone(Arrays.copyOfRange(values, offset, offset + size));
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return new GenericSortedArray<>(values, 0, values.length);
     }
 
     private static class SortedGenericArrayBuilder<T extends Comparable<T>> implements ArrayBuilder<T, SortedArray<T>> {
@@ -15,11 +15,12 @@
 */
 package com.jmt.jseries.array;
 
+import java.io.ObjectStreamException;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
-public final class InstantSortedArray implements SortedArray<Instant> {
+public final class InstantSortedArray implements PrimitiveInstantSortedArray {
 
     private static final long serialVersionUID = 1L;
 
@@ -53,9 +54,19 @@ public final class InstantSortedArray implements SortedArray<Instant> {
     public static InstantSortedArray ofMillisNoClone(long... values) {
         return new InstantSortedArray(false, values);
     }
+
+    /**
+     * View of values[0..size) without copying and without checking the order, which the caller guarantees.
+     * Meant for growable columns that check the order on every append, such as LiveSeries.
+     */
+    public static InstantSortedArray ofSortedMillisNoClone(long[] values, int size) {
+        SliceUtil.checkRange(0, size, values.length);
+        return new InstantSortedArray(values, 0, size);
+    }
     
     /**
      * Create an array of evenly spaced numbers over a specified interval.
+     * See also {@link RegularInstantSortedArray#linspace(long, long, long)}, which does not materialize the array.
      */
     public static InstantSortedArray linspace(long start, long endExcl, long step) {
     	
@@ -78,13 +89,28 @@ public final class InstantSortedArray implements SortedArray<Instant> {
         return ofMillisNoClone(result);
     }
     
-    public static ArrayBuilder<Instant, SortedArray<Instant>> builder(int sizeHint) {
+    public static SortedInstantArrayBuilder builder(int sizeHint) {
         return new SortedInstantArrayBuilder(sizeHint);
     }
 
+    /**
+     * A slice is a view of the range offset..offset+size of the values. Serialized arrays are never slices.
+     */
+    private final transient int offset;
+
+    private final transient int size;
+
     private InstantSortedArray(boolean clone, long... values) {
         checkOrder(values);
         this.values = clone ? values.clone() : values;
+        this.offset = 0;
+        this.size = values.length;
+    }
+
+    private InstantSortedArray(long[] values, int offset, int size) {
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
     }
 
     private void checkOrder(long[] values) {
@@ -97,62 +123,128 @@ public final class InstantSortedArray implements SortedArray<Instant> {
 
     @Override
     public int size() {
-        return values.length;
+        return size;
     }
 
     @Override
     public Instant get(int index) {
-        return Instant.ofEpochMilli(values[index]);
+        return Instant.ofEpochMilli(getMillis(index));
+    }
+
+    @Override
+    public long getMillis(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return values[offset + index];
+    }
+
+    @Override
+    public long[] toMillisArray() {
+        return Arrays.copyOfRange(values, offset, offset + size);
+    }
+
+    @Override
+    public int find(long millis) {
+        return SliceUtil.relative(ArraySearchUtil.find(values, offset, offset + size, millis), offset);
+    }
+
+    @Override
+    public int findGE(long millis) {
+        return ArraySearchUtil.findGE(values, offset, offset + size, millis) - offset;
     }
 
     @Override
-    public int find(Instant x) {
-        return ArraySearchUtil.find(values, x.toEpochMilli());
+    public int findGT(long millis) {
+        return ArraySearchUtil.findGT(values, offset, offset + size, millis) - offset;
     }
 
     @Override
-    public int findGE(Instant x) {
-        return ArraySearchUtil.findGE(values, x.toEpochMilli());
+    public int findLE(long millis) {
+        return ArraySearchUtil.findLE(values, offset, offset + size, millis) - offset;
     }
 
     @Override
-    public int findGT(Instant x) {
-        return ArraySearchUtil.findGT(values, x.toEpochMilli());
+    public int findLT(long millis) {
+        return ArraySearchUtil.findLT(values, offset, offset + size, millis) - offset;
     }
 
     @Override
-    public int findLE(Instant x) {
-        return ArraySearchUtil.findLE(values, x.toEpochMilli());
+    public int findLE(long millis, int hint) {
+        return ArraySearchUtil.findLE(values, offset, offset + size, millis, hint + offset) - offset;
     }
 
     @Override
-    public int findLT(Instant x) {
-        return ArraySearchUtil.findLT(values, x.toEpochMilli());
+    public void findLE(long[] queries, int[] out) {
+        ArraySearchUtil.findLE(values, offset, offset + size, queries, out);
+        if (offset != 0) {
+            for (int k = 0; k < queries.length; k++) {
+                out[k] -= offset;
+            }
+        }
     }
 
+    /**
+     * Returns a view of the range, sharing the values without copying.
+     */
     @Override
-    public ArrayBuilder<Instant, ? extends SortedArray<Instant>> newSortedBuilder(int sizeHint) {
+    public InstantSortedArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        return new InstantSortedArray(values, offset + from, toExcl - from);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return offset == 0 && size == values.length ? this : ofMillisNoClone(toMillisArray());
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return new InstantSortedArray(values, 0, values.length);
+    }
+
+    @Override
+    public SortedInstantArrayBuilder newSortedBuilder(int sizeHint) {
         return new SortedInstantArrayBuilder(sizeHint);
     }
 
-    private static class SortedInstantArrayBuilder implements ArrayBuilder<Instant, SortedArray<Instant>> {
+    /**
+     * Collects epoch millis into a growable long[].
+     * If the size hint was exact, the internal array is handed over to the result without copying.
+     */
+    public static final class SortedInstantArrayBuilder implements ArrayBuilder<Instant, SortedArray<Instant>> {
 
-        //TODO Use an efficient primitive collection?
-        private final ArrayList<Instant> list;
+        private long[] values;
+        private int size;
 
         private SortedInstantArrayBuilder(int sizeHint) {
-            list = new ArrayList<>(sizeHint);
+            if (sizeHint < 0) {
+                throw new IllegalArgumentException("" + sizeHint);
+            }
+            values = new long[sizeHint];
         }
 
         @Override
-        public ArrayBuilder<Instant, SortedArray<Instant>> add(Instant value) {
-            list.add(value);
+        public SortedInstantArrayBuilder add(Instant value) {
+            return addMillis(value.toEpochMilli());
+        }
+
+        public SortedInstantArrayBuilder addMillis(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, DoubleArray.newCapacity(size));
+            }
+            values[size++] = value;
             return this;
         }
 
+        public int size() {
+            return size;
+        }
+
         @Override
-        public SortedArray<Instant> build() {
-            return InstantSortedArray.of(list);
+        public InstantSortedArray build() {
+            //Once the array is handed over, any further add() must grow into a fresh copy
+            long[] result = size == values.length ? values : Arrays.copyOf(values, size);
+            values = result;
+            return ofMillisNoClone(result);
         }
     }
 }
@@ -0,0 +1,137 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Array of doubles stored little-endian in a ByteBuffer,
+ * typically a read-only MappedByteBuffer, so the data are paged in lazily by the OS.
+ * Serialization writes a heap copy, a DoubleArray.
+ */
+public final class MappedDoubleArray implements PrimitiveDoubleArray {
+
+    private static final long serialVersionUID = 1L;
+
+    //The index of a value in the chunks is split by the shift, a single chunk has a shift of 31
+    private final transient DoubleBuffer[] chunks;
+    private final transient int shift;
+    private final transient int offset;
+    private final transient int size;
+
+    /**
+     * Wraps the bytes of the buffers between their positions and limits as one array, the buffers are not modified.
+     * Mapped buffers are limited to 2 GB, larger files are mapped in chunks: all the buffers but the last one
+     * must hold the same power of two number of values.
+     */
+    public static MappedDoubleArray of(ByteBuffer... buffers) {
+        DoubleBuffer[] chunks = new DoubleBuffer[buffers.length];
+        long size = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            chunks[i] = buffers[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            size += chunks[i].limit();
+        }
+        int shift = 31;
+        if (chunks.length > 1) {
+            int chunkSize = chunks[0].limit();
+            if (Integer.bitCount(chunkSize) != 1) {
+                throw new IllegalArgumentException("" + chunkSize);
+            }
+            for (int i = 1; i < chunks.length; i++) {
+                if (chunks[i].limit() > chunkSize || (i < chunks.length - 1 && chunks[i].limit() != chunkSize)) {
+                    throw new IllegalArgumentException("" + chunks[i].limit());
+                }
+            }
+            shift = Integer.numberOfTrailingZeros(chunkSize);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("" + size);
+        }
+        return new MappedDoubleArray(chunks, shift, 0, (int) size);
+    }
+
+    private MappedDoubleArray(DoubleBuffer[] chunks, int shift, int offset, int size) {
+        this.chunks = chunks;
+        this.shift = shift;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        long position = (long) offset + index;
+        return chunks[(int) (position >>> shift)].get((int) (position & ((1L << shift) - 1)));
+    }
+
+    @Override
+    public void getDoubles(int srcBegin, int srcEnd, double[] dst, int dstBegin) {
+        if (srcBegin < 0 || srcEnd > size || srcBegin > srcEnd) {
+            throw new ArrayIndexOutOfBoundsException(srcBegin + " " + srcEnd);
+        }
+        copy(srcBegin, srcEnd, dst, dstBegin);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] result = new double[size];
+        copy(0, size, result, 0);
+        return result;
+    }
+
+    /**
+     * Returns a view of the range, sharing the buffer without copying.
+     */
+    @Override
+    public MappedDoubleArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size());
+        return new MappedDoubleArray(chunks, shift, offset + from, toExcl - from);
+    }
+
+    private void copy(int srcBegin, int srcEnd, double[] dst, int dstBegin) {
+        long position = (long) offset + srcBegin;
+        long end = (long) offset + srcEnd;
+        long chunkSize = 1L << shift;
+        while (position < end) {
+            DoubleBuffer view = chunks[(int) (position >>> shift)].duplicate();
+            int chunkPosition = (int) (position & (chunkSize - 1));
+            int length = (int) Math.min(end - position, chunkSize - chunkPosition);
+            view.position(chunkPosition);
+            view.get(dst, dstBegin, length);
+            dstBegin += length;
+            position += length;
+        }
+    }
+
+    @Override
+    public DoubleArray.DoubleArrayBuilder newBuilder(int sizeHint) {
+        return DoubleArray.builder(sizeHint);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return DoubleArray.ofNoClone(toDoubleArray());
+    }
+}
@@ -0,0 +1,86 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Helpers for processing index ranges of large arrays in parallel.
+ * The chunks run in the current ForkJoinPool if called from one, otherwise in the common pool.
+ */
+public class ParallelUtil {
+
+    /**
+     * Minimum number of elements per chunk, smaller arrays are processed sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 15;
+
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int from, int toExcl);
+    }
+
+    /**
+     * Splits the range 0..size into chunks of at least minChunkSize elements,
+     * a few chunks per available thread.
+     * @return the chunk boundaries: chunk i is bounds[i] .. bounds[i+1]
+     */
+    public static int[] split(int size, int minChunkSize) {
+        if (size < 0 || minChunkSize < 1) {
+            throw new IllegalArgumentException(size + " " + minChunkSize);
+        }
+        int parallelism = ForkJoinTask.inForkJoinPool() ?
+                ForkJoinTask.getPool().getParallelism() :
+                ForkJoinPool.getCommonPoolParallelism();
+        int chunks = (int) Math.max(1, Math.min(size / minChunkSize, 4L * parallelism));
+        int[] bounds = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            bounds[i] = (int) ((long) size * i / chunks);
+        }
+        return bounds;
+    }
+
+    public static void forEachChunk(int size, int minChunkSize, RangeConsumer action) {
+        forEachChunk(split(size, minChunkSize), action);
+    }
+
+    /**
+     * Runs the action for every chunk and waits for all of them. The first exception thrown by any chunk is rethrown.
+     */
+    public static void forEachChunk(int[] bounds, RangeConsumer action) {
+        int chunks = bounds.length - 1;
+        if (chunks == 1) {
+            action.accept(bounds[0], bounds[1]);
+            return;
+        }
+        List<RecursiveAction> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = bounds[i];
+            int toExcl = bounds[i + 1];
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    action.accept(from, toExcl);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+}
@@ -0,0 +1,69 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+/**
+ * Array of doubles with unboxed access to the elements.
+ */
+public interface PrimitiveDoubleArray extends Array<Double> {
+
+    /**
+     * Returns the given array if it is primitive already, otherwise copies it into a DoubleArray.
+     */
+    static PrimitiveDoubleArray of(Array<Double> array) {
+        if (array instanceof PrimitiveDoubleArray) {
+            return (PrimitiveDoubleArray) array;
+        }
+        int size = array.size();
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = array.get(i);
+        }
+        return DoubleArray.ofNoClone(result);
+    }
+
+    double getDouble(int index);
+
+    @Override
+    default Double get(int index) {
+        return getDouble(index);
+    }
+
+    /**
+     * Copies the elements srcBegin..srcEnd (exclusive) into dst, starting at dstBegin.
+     * Implementations which do not support fast random access decode the range sequentially.
+     */
+    default void getDoubles(int srcBegin, int srcEnd, double[] dst, int dstBegin) {
+        for (int i = srcBegin; i < srcEnd; i++) {
+            dst[dstBegin++] = getDouble(i);
+        }
+    }
+
+    @Override
+    default PrimitiveDoubleArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size());
+        double[] result = new double[toExcl - from];
+        getDoubles(from, toExcl, result, 0);
+        return DoubleArray.ofNoClone(result);
+    }
+
+    default double[] toDoubleArray() {
+        int size = size();
+        double[] result = new double[size];
+        getDoubles(0, size, result, 0);
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import java.time.Instant;
+
+/**
+ * Sorted array of instants stored as epoch millis, with unboxed access and search.
+ */
+public interface PrimitiveInstantSortedArray extends SortedArray<Instant> {
+
+    /**
+     * Returns the given array if it is primitive already, otherwise copies it into an InstantSortedArray.
+     */
+    static PrimitiveInstantSortedArray of(SortedArray<Instant> array) {
+        if (array instanceof PrimitiveInstantSortedArray) {
+            return (PrimitiveInstantSortedArray) array;
+        }
+        int size = array.size();
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = array.get(i).toEpochMilli();
+        }
+        return InstantSortedArray.ofMillisNoClone(result);
+    }
+
+    long getMillis(int index);
+
+    /**
+     * The first of duplicate elements, with the same contract as {@link java.util.Arrays#binarySearch(long[], long)} otherwise.
+     */
+    default int find(long millis) {
+        int index = findGE(millis);
+        return index < size() && getMillis(index) == millis ? index : -index - 1;
+    }
+
+    /**
+     * Lower bound, a binary search using {@link #getMillis(int)}.
+     */
+    default int findGE(long millis) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getMillis(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Upper bound, a binary search using {@link #getMillis(int)}.
+     */
+    default int findGT(long millis) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getMillis(mid) <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the last of duplicate elements.
+     */
+    default int findLE(long millis) {
+        return findGT(millis) - 1;
+    }
+
+    default int findLT(long millis) {
+        return findGE(millis) - 1;
+    }
+
+    /**
+     * Unboxed version of {@link #findLE(Comparable, int)}.
+     */
+    default int findLE(long millis, int hint) {
+        return findLE(millis);
+    }
+
+    @Override
+    default int findLE(Instant x, int hint) {
+        return findLE(x.toEpochMilli(), hint);
+    }
+
+    /**
+     * Batch version of {@link #findLE(long)} for queries in ascending order,
+     * out[k] is the index of the last element lower or equal to queries[k], or -1.
+     */
+    default void findLE(long[] queries, int[] out) {
+        if (out.length < queries.length) {
+            throw new IllegalArgumentException(queries.length + " " + out.length);
+        }
+        for (int k = 0; k < queries.length; k++) {
+            if (k > 0 && queries[k] < queries[k - 1]) {
+                throw new IllegalArgumentException("The queries are not in ascending order. position: " + k + " values: " + queries[k - 1] + " " + queries[k]);
+            }
+            out[k] = findGT(queries[k]) - 1;
+        }
+    }
+
+    @Override
+    default Instant get(int index) {
+        return Instant.ofEpochMilli(getMillis(index));
+    }
+
+    @Override
+    default int find(Instant x) {
+        return find(x.toEpochMilli());
+    }
+
+    @Override
+    default int findGE(Instant x) {
+        return findGE(x.toEpochMilli());
+    }
+
+    @Override
+    default int findGT(Instant x) {
+        return findGT(x.toEpochMilli());
+    }
+
+    @Override
+    default int findLE(Instant x) {
+        return findLE(x.toEpochMilli());
+    }
+
+    @Override
+    default int findLT(Instant x) {
+        return findLT(x.toEpochMilli());
+    }
+
+    @Override
+    default PrimitiveInstantSortedArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size());
+        long[] result = new long[toExcl - from];
+        for (int i = from; i < toExcl; i++) {
+            result[i - from] = getMillis(i);
+        }
+        return InstantSortedArray.ofMillisNoClone(result);
+    }
+
+    default long[] toMillisArray() {
+        int size = size();
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = getMillis(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+/**
+ * Evenly spaced instants, stored implicitly as the start, step and size.
+ * Element access and all the searches are O(1) arithmetic, and the array takes constant memory.
+ */
+public final class RegularInstantSortedArray implements PrimitiveInstantSortedArray {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long start;
+
+    private final long step;
+
+    private final int size;
+
+    public static RegularInstantSortedArray of(long start, long step, int size) {
+        return new RegularInstantSortedArray(start, step, size);
+    }
+
+    /**
+     * Create an array of evenly spaced instants over a specified interval.
+     */
+    public static RegularInstantSortedArray linspace(long start, long endExcl, long step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException(start + " " + endExcl + " " + step);
+        }
+        long size = endExcl <= start ? 0 : Long.divideUnsigned(endExcl - start - 1, step) + 1;
+        if (size >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(start + " " + endExcl + " " + step + " " + size);
+        }
+        return new RegularInstantSortedArray(start, step, (int) size);
+    }
+
+    /**
+     * Whether both arrays are regular grids with the same start, step and size.
+     * Such arrays contain the same points without duplicates, so they can be zipped by index.
+     */
+    public static boolean sameGrid(SortedArray<?> a, SortedArray<?> b) {
+        if (!(a instanceof RegularInstantSortedArray) || !(b instanceof RegularInstantSortedArray)) {
+            return false;
+        }
+        RegularInstantSortedArray ra = (RegularInstantSortedArray) a;
+        RegularInstantSortedArray rb = (RegularInstantSortedArray) b;
+        return ra.size == rb.size && (ra.size == 0 || (ra.start == rb.start && ra.step == rb.step));
+    }
+
+    private RegularInstantSortedArray(long start, long step, int size) {
+        if (step <= 0 || size < 0) {
+            throw new IllegalArgumentException(start + " " + step + " " + size);
+        }
+        if (size > 0) {
+            try {
+                Math.addExact(start, Math.multiplyExact(step, size - 1));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(start + " " + step + " " + size);
+            }
+        }
+        this.start = start;
+        this.step = step;
+        this.size = size;
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long step() {
+        return step;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getMillis(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return start + step * index;
+    }
+
+    @Override
+    public int find(long millis) {
+        int floor = floor(millis);
+        return isExact(millis, floor) ? floor : -floor - 2;
+    }
+
+    @Override
+    public int findGE(long millis) {
+        int floor = floor(millis);
+        return isExact(millis, floor) ? floor : floor + 1;
+    }
+
+    @Override
+    public int findGT(long millis) {
+        return floor(millis) + 1;
+    }
+
+    @Override
+    public int findLE(long millis) {
+        return floor(millis);
+    }
+
+    @Override
+    public int findLT(long millis) {
+        int floor = floor(millis);
+        return isExact(millis, floor) ? floor - 1 : floor;
+    }
+
+    /**
+     * Index of the last point lower or equal to millis, or -1.
+     */
+    private int floor(long millis) {
+        if (millis < start) {
+            return -1;
+        }
+        //The difference is non-negative, but may not fit into a signed long
+        long index = Long.divideUnsigned(millis - start, step);
+        return Long.compareUnsigned(index, size) >= 0 ? size - 1 : (int) index;
+    }
+
+    private boolean isExact(long millis, int floor) {
+        return floor >= 0 && start + step * floor == millis;
+    }
+
+    @Override
+    public RegularInstantSortedArray slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size);
+        return new RegularInstantSortedArray(start + step * from, step, toExcl - from);
+    }
+
+    @Override
+    public long[] toMillisArray() {
+        long[] result = new long[size];
+        long x = start;
+        for (int i = 0; i < size; i++) {
+            result[i] = x;
+            x += step;
+        }
+        return result;
+    }
+
+    @Override
+    public InstantSortedArray.SortedInstantArrayBuilder newSortedBuilder(int sizeHint) {
+        return InstantSortedArray.builder(sizeHint);
+    }
+}
@@ -0,0 +1,36 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+final class SliceUtil {
+
+    private SliceUtil() {
+    }
+
+    static void checkRange(int from, int toExcl, int size) {
+        if (from < 0 || toExcl > size || from > toExcl) {
+            throw new IndexOutOfBoundsException(from + " " + toExcl + " " + size);
+        }
+    }
+
+    /**
+     * Converts the result of a binary search in the backing array into the result relative to the offset,
+     * keeping the encoding of the insertion point of a negative result.
+     */
+    static int relative(int index, int offset) {
+        return index >= 0 ? index - offset : index + offset;
+    }
+}
@@ -19,16 +19,42 @@ import java.util.function.Function;
 
 public interface SortedArray<T extends Comparable<T>> extends Array<T> {
 
+    /**
+     * Same contract as {@link java.util.Arrays#binarySearch(Object[], Object)}.
+     * The implementations in this library return the first of duplicate elements.
+     */
     int find(T x);
 
     int findGE(T x);
 
     int findGT(T x);
 
+    /**
+     * The implementations in this library return the last of duplicate elements.
+     */
     int findLE(T x);
 
     int findLT(T x);
 
+    /**
+     * findLE with a hint, the result of a previous findLE with a lower or equal x.
+     * The implementations search forward from the hint, the default one ignores it.
+     * See {@link com.jmt.jseries.SeriesCursor}.
+     */
+    default int findLE(T x, int hint) {
+        return findLE(x);
+    }
+
+    @Override
+    default SortedArray<T> slice(int from, int toExcl) {
+        SliceUtil.checkRange(from, toExcl, size());
+        ArrayBuilder<T, ? extends SortedArray<T>> builder = newSortedBuilder(toExcl - from);
+        for (int i = from; i < toExcl; i++) {
+            builder.add(get(i));
+        }
+        return builder.build();
+    }
+
     default ArrayBuilder<T, ? extends SortedArray<T>> newSortedBuilder(int sizeHint) {
         return GenericSortedArray.builder(sizeHint);
     }
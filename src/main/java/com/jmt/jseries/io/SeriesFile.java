@@ -0,0 +1,162 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.io;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.MappedDoubleArray;
+import com.jmt.jseries.array.MappedInstantSortedArray;
+import com.jmt.jseries.array.PrimitiveDoubleArray;
+import com.jmt.jseries.array.PrimitiveInstantSortedArray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Binary columnar file format for series of doubles over instants, which can be memory-mapped.
+ * <p>
+ * All numbers are little-endian. The file starts with a header:
+ * magic (int), version (int), size (long), default value (double), name length (int), 4 unused bytes,
+ * and the name in UTF-8, padded with zeros to a multiple of 8 bytes.
+ * It is followed by the column of epoch millis (size longs) and the column of values (size doubles).
+ * <p>
+ * Opening the file just maps the columns, the data are paged in lazily by the OS when accessed.
+ * Columns larger than 1 GB are mapped in chunks, as a single mapping is limited to 2 GB.
+ * The mapping stays valid until the series is garbage collected.
+ */
+public class SeriesFile {
+
+    static final int MAGIC = 0x4A535246;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private static final int CHUNK_BYTES = 1 << 30;
+
+    public static void write(Path path, Series<Instant, Double> series) throws IOException {
+        InstantDoubleSeries s = InstantDoubleSeries.of(series);
+        PrimitiveInstantSortedArray domain = s.domain();
+        PrimitiveDoubleArray values = s.values();
+        int size = s.size();
+        byte[] name = s.name().getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + (int) padded(name.length)).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(size).putDouble(s.defaultDoubleValue()).putInt(name.length).putInt(0);
+            header.put(name);
+            header.clear();
+            writeFully(channel, header);
+            for (int i = 0; i < size; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(domain.getMillis(i));
+            }
+            for (int i = 0; i < size; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.putDouble(values.getDouble(i));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Maps the file into memory read-only. The file must not be modified while the series is in use.
+     */
+    public static InstantDoubleSeries open(Path path) throws IOException {
+        return open(path, CHUNK_BYTES);
+    }
+
+    /**
+     * Maps the columns in chunks of the given size (a power of two multiple of 8 bytes).
+     */
+    static InstantDoubleSeries open(Path path, int chunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (fileSize < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE) {
+                throw new IOException("Not a series file: " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a series file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + ": " + path);
+            }
+            long size = header.getLong();
+            double defaultValue = header.getDouble();
+            int nameLength = header.getInt();
+            long columnBytes = size * 8;
+            long dataStart = HEADER_SIZE + padded(nameLength);
+            if (size < 0 || size > Integer.MAX_VALUE || nameLength < 0
+                    || fileSize != dataStart + 2 * columnBytes) {
+                throw new IOException("Corrupted series file: " + path);
+            }
+
+            ByteBuffer name = ByteBuffer.allocate(nameLength);
+            while (name.hasRemaining()) {
+                channel.read(name, HEADER_SIZE + name.position());
+            }
+            ByteBuffer[] times = map(channel, dataStart, columnBytes, chunkBytes);
+            ByteBuffer[] values = map(channel, dataStart + columnBytes, columnBytes, chunkBytes);
+            return InstantDoubleSeries.create(
+                    new String(name.array(), StandardCharsets.UTF_8),
+                    MappedInstantSortedArray.of(times),
+                    MappedDoubleArray.of(values),
+                    defaultValue);
+        }
+    }
+
+    private static ByteBuffer[] map(FileChannel channel, long start, long size, int chunkBytes) throws IOException {
+        ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (size + chunkBytes - 1) / chunkBytes)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkStart = (long) i * chunkBytes;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + chunkStart, Math.min(chunkBytes, size - chunkStart));
+        }
+        return chunks;
+    }
+
+    private static long padded(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.array.CompressedInstantSortedArray;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InstantDoubleCursorTest {
+
+    private final InstantDoubleSeries series = InstantDoubleSeries.create(
+            "foo",
+            InstantSortedArray.ofMillis(10, 20, 20, 30, 50).slice(1, 5),
+            DoubleArray.of(1.0, 2.0, 3.0, 4.0, 5.0).slice(1, 5),
+            -1.0);
+
+    @Test
+    public void iterate() {
+        InstantDoubleCursor cursor = series.pointCursor();
+        assertThat(cursor.position()).isEqualTo(-1);
+        StringBuilder sb = new StringBuilder();
+        while (cursor.next()) {
+            sb.append(cursor.timeMillis()).append('=').append(cursor.value()).append(' ');
+        }
+        assertThat(sb.toString()).isEqualTo("20=2.0 20=3.0 30=4.0 50=5.0 ");
+        assertThat(cursor.position()).isEqualTo(4);
+        assertThat(cursor.next()).isFalse();
+        assertThat(cursor.position()).isEqualTo(4);
+
+        cursor.reset();
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.timeMillis()).isEqualTo(20);
+    }
+
+    @Test
+    public void seek() {
+        InstantDoubleCursor cursor = series.pointCursor();
+        assertThat(cursor.seek(5)).isFalse();
+        assertThat(cursor.position()).isEqualTo(-1);
+        assertThat(cursor.seek(20)).isTrue();
+        assertThat(cursor.value()).isEqualTo(3.0);
+        assertThat(cursor.seek(49)).isTrue();
+        assertThat(cursor.value()).isEqualTo(4.0);
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.timeMillis()).isEqualTo(50);
+        assertThat(cursor.next()).isFalse();
+        assertThat(cursor.seek(1000)).isTrue();
+        assertThat(cursor.value()).isEqualTo(5.0);
+        assertThat(cursor.seek(25)).isTrue();
+        assertThat(cursor.value()).isEqualTo(3.0);
+        assertThat(cursor.seek(0)).isFalse();
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.value()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void compressedDomain() {
+        InstantDoubleSeries compressed = InstantDoubleSeries.create("c",
+                CompressedInstantSortedArray.of(series.domain()), series.values(), -1.0);
+        InstantDoubleCursor cursor = compressed.pointCursor();
+        assertThat(cursor.seek(30)).isTrue();
+        assertThat(cursor.position()).isEqualTo(2);
+        assertThat(cursor.next()).isTrue();
+        assertThat(cursor.timeMillis()).isEqualTo(50);
+    }
+
+    @Test
+    public void noCurrentPoint() {
+        InstantDoubleCursor cursor = series.pointCursor();
+        assertThatThrownBy(cursor::value).isInstanceOf(IllegalStateException.class);
+        InstantDoubleCursor empty = series.slice(0, 0).pointCursor();
+        assertThat(empty.next()).isFalse();
+        assertThat(empty.seek(100)).isFalse();
+        assertThatThrownBy(empty::timeMillis).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,195 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.algebra.Binary;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.GenericArray;
+import com.jmt.jseries.array.GenericSortedArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.RegularInstantSortedArray;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InstantDoubleSeriesTest {
+
+    private final InstantDoubleSeries s1 = InstantDoubleSeries.create(
+            "foo",
+            InstantSortedArray.ofMillis(1, 5, 10),
+            DoubleArray.of(1.0, 2.0, 3.0),
+            -1.0);
+
+    private final InstantDoubleSeries s2 = InstantDoubleSeries.create(
+            "bar",
+            InstantSortedArray.ofMillis(3, 10),
+            DoubleArray.of(1.0, 2.0),
+            -10.0);
+
+    @Test
+    public void primitiveAccess() {
+        assertThat(s1.timeMillisAt(1)).isEqualTo(5L);
+        assertThat(s1.valueAt(1)).isEqualTo(2.0);
+        assertThat(s1.defaultDoubleValue()).isEqualTo(-1.0);
+        assertThat(s1.applyAsDouble(0)).isEqualTo(-1.0);
+        assertThat(s1.applyAsDouble(1)).isEqualTo(1.0);
+        assertThat(s1.applyAsDouble(7)).isEqualTo(2.0);
+        assertThat(s1.applyAsDouble(100)).isEqualTo(3.0);
+        assertThat(s1.apply(Instant.ofEpochMilli(7))).isEqualTo(2.0);
+    }
+
+    @Test
+    public void convertsNonPrimitiveArrays() {
+        InstantDoubleSeries s = InstantDoubleSeries.create(
+                GenericSortedArray.of(Instant.ofEpochMilli(1), Instant.ofEpochMilli(2)),
+                GenericArray.of(3.0, 4.0));
+        assertThat(s.timeMillisAt(1)).isEqualTo(2L);
+        assertThat(s.valueAt(1)).isEqualTo(4.0);
+    }
+
+    @Test
+    public void of() {
+        assertThat(InstantDoubleSeries.of(s1)).isSameAs(s1);
+        Series<Instant, Double> generic = new SeriesImpl<>("baz", s1.domain(), s1.values(), 7.0);
+        InstantDoubleSeries converted = InstantDoubleSeries.of(generic);
+        assertThat(converted.domain()).isSameAs(s1.domain());
+        assertThat(converted.values()).isSameAs(s1.values());
+        assertThat(converted.defaultDoubleValue()).isEqualTo(7.0);
+        assertThat(converted.name()).isEqualTo("baz");
+    }
+
+    @Test
+    public void map() {
+        InstantDoubleSeries result = s1.map(x -> x * 2);
+        assertThat(result.values().asList()).containsExactly(2.0, 4.0, 6.0);
+        assertThat(result.domain()).isSameAs(s1.domain());
+        assertThat(result.name()).isEqualTo("foo");
+        assertThat(result.defaultValue()).isEqualTo(-1.0);
+    }
+
+    @Test
+    public void zip_series() {
+        InstantDoubleSeries result = s1.zip(s2, (x, y) -> x + y);
+        assertThat(result.values().asList()).containsExactly(-9.0, 3.0, 5.0);
+        assertThat(result.domain()).isSameAs(s1.domain());
+    }
+
+    @Test
+    public void zip_array() {
+        InstantDoubleSeries result = s1.zip(DoubleArray.of(10.0, 11.0, 12.0), (x, y) -> x + y);
+        assertThat(result.values().asList()).containsExactly(11.0, 13.0, 15.0);
+        assertThatThrownBy(() -> s1.zip(DoubleArray.of(1.0), (x, y) -> x + y))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void genericOperationsKeepType() {
+        assertThat(s1.withName("x")).isInstanceOf(InstantDoubleSeries.class);
+        assertThat(Binary.mul(s1, 2)).isInstanceOf(InstantDoubleSeries.class);
+        assertThat(Binary.add(s1, s2)).isInstanceOf(InstantDoubleSeries.class);
+        assertThat(Binary.add(s1, s2).values().asList()).containsExactly(-9.0, 3.0, 5.0);
+        assertThat(s1.zipWithValues(t -> (double) t.toEpochMilli(), (x, y) -> x + y).values().asList())
+                .containsExactly(2.0, 7.0, 13.0);
+    }
+
+    @Test
+    public void parallel_sameAsSequential() {
+        int size = 200_000;
+        long[] times1 = new long[size];
+        double[] values1 = new double[size];
+        long[] times2 = new long[size / 2];
+        double[] values2 = new double[size / 2];
+        for (int i = 0; i < size; i++) {
+            times1[i] = 2L * i;
+            values1[i] = i % 101;
+        }
+        for (int i = 0; i < size / 2; i++) {
+            //Duplicate times and points before the beginning of s1
+            times2[i] = 7L * (i / 2) - 10;
+            values2[i] = i % 13;
+        }
+        InstantDoubleSeries a = InstantDoubleSeries.create("a", InstantSortedArray.ofMillisNoClone(times1), DoubleArray.ofNoClone(values1), 0.0);
+        InstantDoubleSeries b = InstantDoubleSeries.create("b", InstantSortedArray.ofMillisNoClone(times2), DoubleArray.ofNoClone(values2), -5.0);
+
+        assertThat(a.mapParallel(x -> x * 3).values().toDoubleArray())
+                .isEqualTo(a.map(x -> x * 3).values().toDoubleArray());
+        assertThat(a.zipParallel(b, (x, y) -> x * 10 + y).values().toDoubleArray())
+                .isEqualTo(a.zip(b, Join.LEFT, (x, y) -> x * 10 + y).values().toDoubleArray());
+        assertThat(a.zipParallel(a.values(), (x, y) -> x - y).values().toDoubleArray())
+                .isEqualTo(new double[size]);
+        assertThat(InstantDoubleSeries.of(Binary.sub(a, b)).values().toDoubleArray())
+                .isEqualTo(a.zip(b, Join.LEFT, (x, y) -> x - y).values().toDoubleArray());
+        assertThat(Binary.sub(a, b)).isInstanceOf(InstantDoubleSeries.class);
+    }
+
+    @Test
+    public void regularGrid_preserved() {
+        InstantDoubleSeries a = InstantDoubleSeries.create("a", RegularInstantSortedArray.of(0, 10, 3), DoubleArray.of(1.0, 2.0, 3.0));
+        InstantDoubleSeries b = InstantDoubleSeries.create("b", RegularInstantSortedArray.of(0, 10, 3), DoubleArray.of(10.0, 20.0, 30.0));
+        assertThat(a.map(x -> -x).domain()).isSameAs(a.domain());
+        for (Join join : Join.values()) {
+            InstantDoubleSeries result = a.zip(b, join, (x, y) -> x + y);
+            assertThat(result.domain()).isSameAs(a.domain());
+            assertThat(result.values().asList()).containsExactly(11.0, 22.0, 33.0);
+        }
+        assertThat(Binary.add(a, b).domain()).isSameAs(a.domain());
+
+        InstantDoubleSeries shifted = InstantDoubleSeries.create("c", RegularInstantSortedArray.of(5, 10, 3), DoubleArray.of(10.0, 20.0, 30.0));
+        assertThat(a.zip(shifted, Join.LEFT, (x, y) -> x + y).values().asList()).containsExactly(1.0, 12.0, 23.0);
+    }
+
+    @Test
+    public void slice() {
+        InstantDoubleSeries s = InstantDoubleSeries.create("s", InstantSortedArray.ofMillis(1, 3, 3, 5, 8), DoubleArray.of(1.0, 2.0, 3.0, 4.0, 5.0), -1.0);
+        InstantDoubleSeries byIndex = s.slice(1, 4);
+        assertThat(byIndex.domain().toMillisArray()).containsExactly(3, 3, 5);
+        assertThat(byIndex.values().asList()).containsExactly(2.0, 3.0, 4.0);
+        assertThat(byIndex.name()).isEqualTo("s");
+        assertThat(byIndex.defaultDoubleValue()).isEqualTo(-1.0);
+        assertThat(byIndex.applyAsDouble(2)).isEqualTo(-1.0);
+        assertThat(byIndex.applyAsDouble(100)).isEqualTo(4.0);
+
+        assertThat(s.sliceMillis(3, 8).domain().toMillisArray()).containsExactly(3, 3, 5);
+        assertThat(s.sliceMillis(2, 6).values().asList()).containsExactly(2.0, 3.0, 4.0);
+        assertThat(s.slice(Instant.ofEpochMilli(4), Instant.ofEpochMilli(100)).values().asList()).containsExactly(4.0, 5.0);
+        assertThat(s.sliceMillis(6, 7).size()).isEqualTo(0);
+        assertThat(s.sliceMillis(7, 2).size()).isEqualTo(0);
+
+        Series<Instant, Double> generic = new SeriesImpl<>("g", s.domain(), s.values(), 0.0);
+        assertThat(generic.slice(Instant.ofEpochMilli(2), Instant.ofEpochMilli(6)).values().asList()).containsExactly(2.0, 3.0, 4.0);
+        assertThat(RegularInstantSortedArray.of(0, 10, 5).slice(2, 4).toMillisArray()).containsExactly(20, 30);
+    }
+
+    @Test
+    public void reindex() {
+        InstantDoubleSeries s = InstantDoubleSeries.create("s", InstantSortedArray.ofMillis(10, 20, 20, 40), DoubleArray.of(1.0, 2.0, 3.0, 4.0), -1.0);
+        RegularInstantSortedArray grid = RegularInstantSortedArray.of(0, 10, 6);
+        InstantDoubleSeries result = s.reindex(grid);
+        assertThat(result.domain()).isSameAs(grid);
+        assertThat(result.values().asList()).containsExactly(-1.0, 1.0, 3.0, 3.0, 4.0, 4.0);
+        assertThat(result.name()).isEqualTo("s");
+        assertThat(result.defaultDoubleValue()).isEqualTo(-1.0);
+
+        //Generic implementation, and a sliced source
+        Series<Instant, Double> generic = new SeriesImpl<>("g", s.domain(), s.values(), -1.0);
+        assertThat(generic.reindex(grid).values().asList()).isEqualTo(result.values().asList());
+        assertThat(s.slice(1, 4).reindex(grid).values().asList()).containsExactly(-1.0, -1.0, 3.0, 3.0, 4.0, 4.0);
+        assertThat(s.reindex(InstantSortedArray.empty()).size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,197 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.LiveSeries.Indicator;
+import com.jmt.jseries.algebra.DirtyFunctions;
+import com.jmt.jseries.algebra.Moving;
+import com.jmt.jseries.algebra.StatefulDoubleOperator;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LiveSeriesTest {
+
+    @Test
+    public void appendAndSnapshot() {
+        LiveSeries live = LiveSeries.create("foo", -1.0, 1);
+        assertThat(live.isEmpty()).isTrue();
+        assertThat(live.lastValue()).isEqualTo(-1.0);
+
+        live.append(10, 1.0);
+        InstantDoubleSeries first = live.snapshot();
+        live.append(20, 2.0);
+        live.append(20, 3.0);
+        live.append(30, 4.0);
+
+        assertThat(live.size()).isEqualTo(4);
+        assertThat(live.lastValue()).isEqualTo(4.0);
+        assertThat(live.timeMillisAt(1)).isEqualTo(20);
+        assertThat(live.valueAt(2)).isEqualTo(3.0);
+
+        InstantDoubleSeries snapshot = live.snapshot();
+        assertThat(snapshot.name()).isEqualTo("foo");
+        assertThat(snapshot.defaultDoubleValue()).isEqualTo(-1.0);
+        assertThat(snapshot.domain().toMillisArray()).containsExactly(10, 20, 20, 30);
+        assertThat(snapshot.values().toDoubleArray()).containsExactly(1.0, 2.0, 3.0, 4.0);
+
+        //The snapshots are not affected by the later appends
+        assertThat(first.size()).isEqualTo(1);
+        live.append(40, 5.0);
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.applyAsDouble(100)).isEqualTo(4.0);
+    }
+
+    @Test
+    public void invalidAppend() {
+        LiveSeries live = LiveSeries.create("foo");
+        live.append(10, 1.0);
+        assertThatThrownBy(() -> live.append(9, 2.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> live.valueAt(1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(live.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void indicators_sameAsMoving() {
+        Random random = new Random(3);
+        int size = 1000;
+        long[] millis = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            millis[i] = i * 10L + random.nextInt(5);
+            values[i] = Math.floor(random.nextDouble() * 100);
+        }
+        InstantDoubleSeries src = InstantDoubleSeries.create("foo", InstantSortedArray.ofMillis(millis), DoubleArray.of(values), 0.0);
+
+        LiveSeries live = LiveSeries.create("foo");
+        //Registered before, in between and after the appends
+        Indicator avg = live.movingAvg(20);
+        Indicator avgExp = live.movingAvgExp(20);
+        for (int i = 0; i < 300; i++) {
+            live.append(millis[i], values[i]);
+        }
+        Indicator sum = live.movingSum(20);
+        Indicator min = live.movingMin(20);
+        Indicator max = live.movingMax(20);
+        live.appendAll(src.slice(300, 700));
+        Indicator shift = live.shift(5);
+        Indicator quantile = live.movingQuantile(20, 0.3);
+        for (int i = 700; i < size; i++) {
+            live.append(millis[i], values[i]);
+        }
+
+        assertThat(live.indicators()).containsExactly(avg, avgExp, sum, min, max, shift, quantile);
+        assertSame(avg, Moving.avg(src, 20));
+        assertSame(avgExp, Moving.avgExp(src, 20));
+        assertSame(sum, Moving.sum(src, 20));
+        assertSame(min, Moving.min(src, 20));
+        assertSame(max, Moving.max(src, 20));
+        assertSame(shift, Moving.shift(src, 5));
+        assertSame(quantile, Moving.quantile(src, 20, 0.3));
+        assertThat(avg.lastValue()).isEqualTo(avg.valueAt(size - 1));
+    }
+
+    private static void assertSame(Indicator indicator, Series<?, Double> expected) {
+        InstantDoubleSeries actual = indicator.snapshot();
+        assertThat(actual.name()).isEqualTo(expected.name());
+        assertThat(actual.values().asList()).isEqualTo(expected.values().asList());
+        assertThat(actual.domain().asList()).isEqualTo(expected.domain().asList());
+    }
+
+    @Test
+    public void concurrentReaders() throws Exception {
+        int points = 200_000;
+        LiveSeries live = LiveSeries.create("foo", 0.0, 1);
+        Indicator sum = live.movingSum(2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    int lastSize = 0;
+                    while (!done.get()) {
+                        //Every point has value == time, and the moving sum of 2 is 2 * time - 1
+                        InstantDoubleSeries snapshot = live.snapshot();
+                        InstantDoubleSeries sums = sum.snapshot();
+                        int size = snapshot.size();
+                        assertThat(size).isGreaterThanOrEqualTo(lastSize);
+                        assertThat(sums.size()).isGreaterThanOrEqualTo(size);
+                        if (size > 0) {
+                            long t = snapshot.timeMillisAt(size - 1);
+                            assertThat(t).isEqualTo(size);
+                            assertThat(snapshot.valueAt(size - 1)).isEqualTo((double) t);
+                            assertThat(sums.valueAt(size - 1)).isEqualTo(size == 1 ? 1.0 : 2.0 * t - 1);
+                        }
+                        lastSize = size;
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[r].start();
+        }
+
+        for (int i = 1; i <= points; i++) {
+            live.append(i, i);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        assertThat(live.size()).isEqualTo(points);
+        assertThat(sum.lastValue()).isEqualTo(2.0 * points - 1);
+    }
+
+    @Test
+    public void resumeIndicatorFromCheckpoint() throws Exception {
+        LiveSeries live = LiveSeries.create("foo");
+        Indicator avgExp = live.movingAvgExp(10);
+        Indicator quantile = live.movingQuantile(10, 0.5);
+        for (int i = 0; i < 100; i++) {
+            live.append(i, i % 7);
+        }
+        byte[] avgExpState = avgExp.saveState();
+        byte[] quantileState = quantile.saveState();
+        for (int i = 100; i < 150; i++) {
+            live.append(i, i % 7);
+        }
+
+        //After a restart, only the points after the checkpoint are available
+        LiveSeries resumed = LiveSeries.create("foo");
+        resumed.appendAll(live.snapshot().slice(100, 120));
+        StatefulDoubleOperator avgExpOperator = DirtyFunctions.movingAvgExpOperator(10);
+        avgExpOperator.loadState(avgExpState);
+        StatefulDoubleOperator quantileOperator = DirtyFunctions.movingQuantileOperator(10, 0.5, false);
+        quantileOperator.loadState(quantileState);
+        Indicator resumedAvgExp = resumed.register("EMA", avgExpOperator);
+        Indicator resumedQuantile = resumed.register("Qtl", quantileOperator);
+        resumed.appendAll(live.snapshot().slice(120, 150));
+
+        assertThat(resumedAvgExp.snapshot().values().asList()).isEqualTo(avgExp.snapshot().slice(100, 150).values().asList());
+        assertThat(resumedQuantile.snapshot().values().asList()).isEqualTo(quantile.snapshot().slice(100, 150).values().asList());
+    }
+}
@@ -0,0 +1,72 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries;
+
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.GenericArray;
+import com.jmt.jseries.array.GenericSortedArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SeriesCursorTest {
+
+    private final InstantDoubleSeries series = InstantDoubleSeries.create(
+            "foo",
+            InstantSortedArray.ofMillis(10, 20, 20, 30, 50).slice(1, 5),
+            DoubleArray.of(1.0, 2.0, 3.0, 4.0, 5.0).slice(1, 5),
+            -1.0);
+
+    @Test
+    public void sequentialLookups() {
+        SeriesCursor<Instant, Double> cursor = series.cursor();
+        assertThat(cursor.position()).isEqualTo(-1);
+        assertThat(cursor.apply(Instant.ofEpochMilli(5))).isEqualTo(-1.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(20))).isEqualTo(3.0);
+        assertThat(cursor.position()).isEqualTo(1);
+        assertThat(cursor.apply(Instant.ofEpochMilli(25))).isEqualTo(3.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(49))).isEqualTo(4.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(1000))).isEqualTo(5.0);
+        assertThat(cursor.position()).isEqualTo(3);
+    }
+
+    @Test
+    public void backwardJump() {
+        SeriesCursor<Instant, Double> cursor = series.cursor();
+        assertThat(cursor.apply(Instant.ofEpochMilli(40))).isEqualTo(4.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(21))).isEqualTo(3.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(0))).isEqualTo(-1.0);
+        assertThat(cursor.apply(Instant.ofEpochMilli(30))).isEqualTo(4.0);
+    }
+
+    @Test
+    public void genericSeries() {
+        Series<String, String> s = new SeriesImpl<>("s", GenericSortedArray.of("b", "d", "d", "f"), GenericArray.of("1", "2", "3", "4"), "-");
+        SeriesCursor<String, String> cursor = s.cursor();
+        assertThat(cursor.apply("a")).isEqualTo("-");
+        assertThat(cursor.apply("c")).isEqualTo("1");
+        assertThat(cursor.apply("e")).isEqualTo("3");
+        assertThat(cursor.apply("z")).isEqualTo("4");
+        assertThat(cursor.apply("b")).isEqualTo("1");
+
+        Series<String, String> zipped = new SeriesImpl<>("t", GenericSortedArray.of("a", "d", "e"), GenericArray.of("x", "y", "z"), "?")
+                .zipWithValues(s, (x, y) -> x + y);
+        assertThat(zipped.values().asList()).containsExactly("x-", "y3", "z3");
+    }
+}
@@ -15,14 +15,20 @@
 */
 package com.jmt.jseries;
 
+import com.jmt.jseries.array.Array;
+import com.jmt.jseries.array.ArrayBuilder;
 import com.jmt.jseries.array.DoubleArray;
 import com.jmt.jseries.array.GenericArray;
+import com.jmt.jseries.array.GenericSortedArray;
 import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.SortedArray;
 import com.jmt.testutil.Parse;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.time.Instant;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -235,7 +241,110 @@ public class SeriesImplTest {
         Assert.assertSame(v1, v2);
     }
 
+    @Test
+    public void parallel_sameAsSequential() {
+        int size = 100_000;
+        Long[] domain = new Long[size];
+        Double[] values = new Double[size];
+        Double[] values2 = new Double[size];
+        for (int i = 0; i < size; i++) {
+            domain[i] = 3L * i;
+            values[i] = (double) (i % 1000);
+            values2[i] = (double) (i % 7);
+        }
+        Series<Long, Double> s1 = new SeriesImpl<>("foo", GenericSortedArray.ofNoClone(domain), GenericArray.ofNoClone(values), -1.0);
+        Series<Long, Double> s2 = new SeriesImpl<>("bar", GenericSortedArray.of(domain).mapSorted(t -> t + 1), GenericArray.ofNoClone(values2), 0.0);
+
+        Series<Long, Double> mapped = s1.mapValuesParallel(x -> x * 2);
+        assertThat(mapped.values().asList()).isEqualTo(s1.mapValues(x -> x * 2).values().asList());
+        assertThat(mapped.domain()).isSameAs(s1.domain());
+        assertThat(mapped.name()).isEqualTo("foo");
+
+        assertThat(s1.zipWithValuesParallel(s2, (x, y) -> x - y).values().asList())
+                .isEqualTo(s1.zipWithValues(s2, (x, y) -> x - y).values().asList());
+        assertThat(s1.zipWithValuesParallel(s2.values(), (x, y) -> x - y).values().asList())
+                .isEqualTo(s1.zipWithValues(s2.values(), (x, y) -> x - y).values().asList());
+        assertThatThrownBy(() -> s1.zipWithValuesParallel(GenericArray.of(1.0), (x, y) -> x - y))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     private void fail() {
         Assert.fail();
     }
+
+    @Test
+    public void reindex() {
+        Series<String, String> s = new SeriesImpl<>("s", GenericSortedArray.of("b", "d", "d", "f"), GenericArray.of("1", "2", "3", "4"), "-");
+        Series<String, String> result = s.reindex(GenericSortedArray.of("a", "b", "c", "d", "e", "z"));
+        assertThat(result.values().asList()).containsExactly("-", "1", "1", "3", "3", "4");
+        assertThat(result.domain().asList()).containsExactly("a", "b", "c", "d", "e", "z");
+        assertThat(result.defaultValue()).isEqualTo("-");
+    }
+
+    @Test
+    public void defaultMethodsOfMinimalSeries() {
+        Series<String, String> base = new SeriesImpl<>("s", GenericSortedArray.of("b", "d", "f"), GenericArray.of("1", "2", "3"), "-");
+        //An implementation outside the library, with only the methods which have no default
+        Series<String, String> s = new Series<String, String>() {
+
+            @Override
+            public String name() {
+                return base.name();
+            }
+
+            @Override
+            public Series<String, String> withName(String name) {
+                return base.withName(name);
+            }
+
+            @Override
+            public SortedArray<String> domain() {
+                return base.domain();
+            }
+
+            @Override
+            public Array<String> values() {
+                return base.values();
+            }
+
+            @Override
+            public String defaultValue() {
+                return base.defaultValue();
+            }
+
+            @Override
+            public <S> Series<String, S> mapValues(ArrayBuilder<S, ? extends Array<S>> resultBuilder,
+                                                   S defaultValue, Function<? super String, ? extends S> mapper) {
+                return base.mapValues(resultBuilder, defaultValue, mapper);
+            }
+
+            @Override
+            public Series<String, String> zipWithValues(Function<? super String, ? extends String> operand2,
+                                                        BiFunction<? super String, ? super String, ? extends String> operator) {
+                return base.zipWithValues(operand2, operator);
+            }
+
+            @Override
+            public Series<String, String> zipWithValues(Array<? extends String> operand2,
+                                                        BiFunction<? super String, ? super String, ? extends String> operator) {
+                return base.zipWithValues(operand2, operator);
+            }
+        };
+
+        Series<String, String> withValues = s.withValues(GenericArray.of("x", "y", "z"));
+        assertThat(withValues.values().asList()).containsExactly("x", "y", "z");
+        assertThat(withValues.name()).isEqualTo("s");
+        assertThat(withValues.domain().asList()).containsExactly("b", "d", "f");
+
+        Series<String, String> slice = s.slice(1, 3);
+        assertThat(slice.domain().asList()).containsExactly("d", "f");
+        assertThat(slice.values().asList()).containsExactly("2", "3");
+        assertThat(slice.defaultValue()).isEqualTo("-");
+
+        assertThat(s.reindex(GenericSortedArray.of("a", "c", "g")).values().asList()).containsExactly("-", "1", "3");
+        assertThat(s.mapValuesParallel(x -> x + "!").values().asList()).containsExactly("1!", "2!", "3!");
+        assertThat(s.zipWithValuesParallel(base, (x, y) -> x + y).values().asList()).containsExactly("11", "22", "33");
+        assertThat(s.zipWithValuesParallel(GenericArray.of("a", "b", "c"), (x, y) -> x + y).values().asList())
+                .containsExactly("1a", "2b", "3c");
+    }
 }
@@ -0,0 +1,83 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Join;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryTest {
+
+    private final Series<Instant, Double> s1 = InstantDoubleSeries.create("foo",
+            InstantSortedArray.ofMillis(1, 5, 5, 10), DoubleArray.of(1.0, 2.0, 3.0, 4.0), -1.0);
+
+    private final Series<Instant, Double> s2 = InstantDoubleSeries.create("bar",
+            InstantSortedArray.ofMillis(3, 5, 7, 7, 12), DoubleArray.of(10.0, 20.0, 30.0, 40.0, 50.0), -10.0);
+
+    @Test
+    public void add_left() {
+        InstantDoubleSeries result = Binary.add(s1, s2, Join.LEFT);
+        assertThat(result.domain()).isSameAs(s1.domain());
+        assertThat(result.values().asList()).containsExactly(-9.0, 22.0, 23.0, 44.0);
+        assertThat(result.defaultValue()).isEqualTo(-1.0);
+        assertThat(result).hasToString("Add(foo,bar)");
+    }
+
+    @Test
+    public void sub_inner() {
+        InstantDoubleSeries result = Binary.sub(s1, s2, Join.INNER);
+        assertThat(result.domain().toMillisArray()).containsExactly(5, 5);
+        assertThat(result.values().asList()).containsExactly(-18.0, -17.0);
+    }
+
+    @Test
+    public void mul_outer() {
+        InstantDoubleSeries result = Binary.mul(s1, s2, Join.OUTER);
+        assertThat(result.domain().toMillisArray()).containsExactly(1, 3, 5, 5, 7, 10, 12);
+        assertThat(result.values().asList()).containsExactly(-10.0, 10.0, 40.0, 60.0, 120.0, 160.0, 200.0);
+        assertThat(result.defaultValue()).isEqualTo(-1.0);
+    }
+
+    @Test
+    public void outer_sameAsTotalFunctions() {
+        Series<Instant, Double> a = InstantDoubleSeries.create("a",
+                InstantSortedArray.ofMillis(2, 4, 6, 8), DoubleArray.of(4.0, 3.0, 2.0, 1.0), 0.0);
+        Series<Instant, Double> b = InstantDoubleSeries.create("b",
+                InstantSortedArray.ofMillis(1, 4, 5, 9), DoubleArray.of(1.0, 2.0, 3.0, 4.0), 5.0);
+        InstantDoubleSeries result = Binary.max(a, b, Join.OUTER);
+        assertThat(result.domain().toMillisArray()).containsExactly(1, 2, 4, 5, 6, 8, 9);
+        for (int i = 0; i < result.size(); i++) {
+            Instant t = result.domain(i);
+            assertThat(result.valueAt(i)).isEqualTo(Math.max(a.apply(t), b.apply(t)));
+        }
+    }
+
+    @Test
+    public void emptyOperands() {
+        Series<Instant, Double> empty = InstantDoubleSeries.create(new Instant[0], new double[0]);
+        assertThat(Binary.add(s1, empty, Join.LEFT).values().asList()).containsExactly(1.0, 2.0, 3.0, 4.0);
+        assertThat(Binary.add(s1, empty, Join.INNER).isEmpty()).isTrue();
+        assertThat(Binary.add(empty, s1, Join.OUTER).values().asList()).containsExactly(1.0, 3.0, 4.0);
+        assertThat(Binary.add(empty, s1, Join.OUTER).domain().toMillisArray()).containsExactly(1, 5, 10);
+    }
+}
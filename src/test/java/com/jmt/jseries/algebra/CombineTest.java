@@ -0,0 +1,147 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Join;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CombineTest {
+
+    @Test
+    public void weightedSum() {
+
+        Series<Instant, Double> s1 = InstantDoubleSeries.create("a",
+                InstantSortedArray.ofMillis(1, 5, 5, 10), DoubleArray.of(1.0, 2.0, 3.0, 4.0), -1.0);
+        Series<Instant, Double> s2 = InstantDoubleSeries.create("b",
+                InstantSortedArray.ofMillis(3, 5, 12), DoubleArray.of(10.0, 20.0, 30.0), 0.0);
+
+        InstantDoubleSeries result = Combine.weightedSum(Arrays.asList(s1, s2), new double[]{2.0, 0.5});
+
+        assertThat(result.domain().toMillisArray()).containsExactly(1, 3, 5, 10, 12);
+        assertThat(result.values().asList()).containsExactly(2.0, 7.0, 16.0, 18.0, 23.0);
+        assertThat(result.defaultValue()).isEqualTo(-2.0);
+    }
+
+    @Test
+    public void sameAsFoldOfBinaryOperations() {
+
+        Random random = new Random(42);
+        List<Series<Instant, Double>> series = new ArrayList<>();
+        double[] weights = new double[20];
+        for (int k = 0; k < weights.length; k++) {
+            long[] times = random.longs(50, 0, 200).sorted().distinct().toArray();
+            double[] values = random.doubles(times.length).toArray();
+            series.add(InstantDoubleSeries.create("s" + k,
+                    InstantSortedArray.ofMillis(times), DoubleArray.of(values), 0.0));
+            weights[k] = random.nextDouble();
+        }
+
+        Series<Instant, Double> expected = Binary.mul(series.get(0), weights[0]);
+        for (int k = 1; k < weights.length; k++) {
+            expected = Binary.add(expected, Binary.mul(series.get(k), weights[k]), Join.OUTER);
+        }
+
+        InstantDoubleSeries result = Combine.weightedSum(series, weights);
+
+        assertThat(result.domain().asList()).isEqualTo(expected.domain().asList());
+        for (int i = 0; i < result.size(); i++) {
+            assertThat(result.valueAt(i)).isCloseTo(expected.value(i), Offset.offset(1e-9));
+        }
+    }
+
+    @Test
+    public void manySeries_sameAsNaiveFold() {
+
+        //Integer values and weights, so that the sums are exact in any order
+        Random random = new Random(7);
+        int count = 1000;
+        List<Series<Instant, Double>> series = new ArrayList<>();
+        double[] weights = new double[count];
+        for (int k = 0; k < count; k++) {
+            long[] times = random.longs(20, 0, 5000).sorted().distinct().toArray();
+            double[] values = random.ints(times.length, -100, 100).asDoubleStream().toArray();
+            series.add(InstantDoubleSeries.create("s" + k,
+                    InstantSortedArray.ofMillis(times), DoubleArray.of(values), random.nextInt(10)));
+            weights[k] = random.nextInt(5) - 2;
+        }
+
+        InstantDoubleSeries result = Combine.weightedSum(series, weights);
+
+        double expectedDefault = 0.0;
+        for (int k = 0; k < count; k++) {
+            expectedDefault += weights[k] * series.get(k).defaultValue();
+        }
+        assertThat(result.defaultValue()).isEqualTo(expectedDefault);
+        for (int i = 0; i < result.size(); i++) {
+            Instant time = result.domain().get(i);
+            double expected = 0.0;
+            for (int k = 0; k < count; k++) {
+                expected += weights[k] * series.get(k).apply(time);
+            }
+            assertThat(result.valueAt(i)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void weightedSum_nonFiniteValueReplaced() {
+        Series<Instant, Double> a = InstantDoubleSeries.create("a",
+                InstantSortedArray.ofMillis(1, 2, 3), DoubleArray.of(Double.NaN, 1.0, 1.0), 0.0);
+        Series<Instant, Double> b = InstantDoubleSeries.create("b",
+                InstantSortedArray.ofMillis(1, 2, 3), DoubleArray.of(5.0, 5.0, 5.0), 0.0);
+        Series<Instant, Double> c = InstantDoubleSeries.create("c",
+                InstantSortedArray.ofMillis(1, 2), DoubleArray.of(Double.POSITIVE_INFINITY, 2.0), 0.0);
+
+        assertThat(Combine.sum(Arrays.asList(a, b)).values().asList()).containsExactly(Double.NaN, 6.0, 6.0);
+        assertThat(Combine.sum(Arrays.asList(c, b)).values().asList()).containsExactly(Double.POSITIVE_INFINITY, 7.0, 7.0);
+    }
+
+    @Test
+    public void weightedSum_largeValueReplaced() {
+        Series<Instant, Double> a = InstantDoubleSeries.create("a",
+                InstantSortedArray.ofMillis(1, 2), DoubleArray.of(1e20, 1.0), 0.0);
+        Series<Instant, Double> b = InstantDoubleSeries.create("b",
+                InstantSortedArray.ofMillis(1, 2), DoubleArray.of(3.0, 3.0), 0.0);
+
+        assertThat(Combine.sum(Arrays.asList(a, b)).values().asList()).containsExactly(1e20, 4.0);
+    }
+
+    @Test
+    public void sum_empty() {
+        InstantDoubleSeries result = Combine.sum(new ArrayList<>());
+        assertThat(result.isEmpty()).isTrue();
+        assertThat(result.defaultValue()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void wrongWeights() {
+        assertThatThrownBy(() -> Combine.weightedSum(new ArrayList<>(), new double[1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -15,13 +15,20 @@
 */
 package com.jmt.jseries.algebra;
 
+import com.jmt.jseries.array.DoubleArray;
 import com.jmt.testutil.FunctionAssert;
 import org.assertj.core.data.Offset;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class DirtyFunctionsTest {
 	
@@ -83,6 +90,27 @@ public class DirtyFunctionsTest {
                 .returns(3.0, 3.0);
     }
 
+    @Test
+    public void movingMinMax_sameAsNaive() {
+        Random random = new Random(7);
+        double[] input = random.doubles(1000).map(d -> Math.floor(d * 20)).toArray();
+        for (int period : new int[]{1, 2, 5, 17, 2000}) {
+            Function<Double, Double> min = DirtyFunctions.movingMin(period);
+            Function<Double, Double> max = DirtyFunctions.movingMax(period);
+            DoubleArray batchMin = DirtyFunctions.movingMin(DoubleArray.of(input), period);
+            DoubleArray batchMax = DirtyFunctions.movingMax(DoubleArray.of(input), period);
+            for (int i = 0; i < input.length; i++) {
+                double[] window = Arrays.copyOfRange(input, Math.max(0, i - period + 1), i + 1);
+                double expectedMin = DoubleStream.of(window).min().getAsDouble();
+                double expectedMax = DoubleStream.of(window).max().getAsDouble();
+                assertThat(min.apply(input[i])).isEqualTo(expectedMin);
+                assertThat(max.apply(input[i])).isEqualTo(expectedMax);
+                assertThat(batchMin.getDouble(i)).isEqualTo(expectedMin);
+                assertThat(batchMax.getDouble(i)).isEqualTo(expectedMax);
+            }
+        }
+    }
+
     @Test
     public void shift_0() {
         FunctionAssert.assertThat(DirtyFunctions.shift(0))
@@ -174,4 +202,183 @@ public class DirtyFunctionsTest {
         assertThat(quantile.apply(4d)).isEqualTo(5);
         assertThat(quantile.apply(3d)).isEqualTo(5);
     }
+
+    @Test
+    public void quantile_sameAsNaive() {
+        Random random = new Random(11);
+        double[] input = random.doubles(500).map(d -> Math.floor(d * 50)).toArray();
+        for (double q : new double[]{0.0, 0.1, 0.5, 0.99, 1.0}) {
+            Function<Double, Double> quantile = DirtyFunctions.movingQuantile(37, q);
+            for (int i = 0; i < input.length; i++) {
+                double[] window = Arrays.copyOfRange(input, Math.max(0, i - 36), i + 1);
+                Arrays.sort(window);
+                int rank = Math.max((int) Math.round(q * window.length), 1);
+                assertThat(quantile.apply(input[i])).isEqualTo(window[rank - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void quantile_interpolated() {
+        Function<Double, Double> quantile = DirtyFunctions.movingQuantile(4, 0.5, true);
+        assertThat(quantile.apply(1d)).isEqualTo(1);
+        assertThat(quantile.apply(2d)).isEqualTo(1.5);
+        assertThat(quantile.apply(4d)).isEqualTo(2);
+        assertThat(quantile.apply(8d)).isEqualTo(3);
+        assertThat(quantile.apply(16d)).isEqualTo(6);
+
+        Function<Double, Double> quartile = DirtyFunctions.movingQuantile(5, 0.75, true);
+        for (int i = 1; i < 5; i++) {
+            quartile.apply((double) i);
+        }
+        assertThat(quartile.apply(5d)).isEqualTo(4);
+        assertThat(quartile.apply(10d)).isEqualTo(5);
+    }
+
+    @Test
+    public void operators_sameAsFunctions() {
+        Random random = new Random(11);
+        double[] input = random.doubles(500).map(d -> Math.floor(d * 100)).toArray();
+        for (int period : new int[]{1, 2, 7, 100}) {
+            assertSameAsFunction(input, DirtyFunctions.movingAvg(period), DirtyFunctions.movingAvgOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.movingAvgExp(period), DirtyFunctions.movingAvgExpOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.movingSum(period), DirtyFunctions.movingSumOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.movingMin(period), DirtyFunctions.movingMinOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.movingMax(period), DirtyFunctions.movingMaxOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.shift(period), DirtyFunctions.shiftOperator(period));
+            assertSameAsFunction(input, DirtyFunctions.movingQuantile(period, 0.3),
+                    DirtyFunctions.movingQuantileOperator(period, 0.3, false));
+            assertSameAsFunction(input, DirtyFunctions.movingQuantile(period, 0.3, true),
+                    DirtyFunctions.movingQuantileOperator(period, 0.3, true));
+            assertSameAsFunction(input, DirtyFunctions.movingQuantileApprox(period, 0.3, 0.05),
+                    DirtyFunctions.movingQuantileApproxOperator(period, 0.3, 0.05));
+        }
+    }
+
+    /**
+     * The bulk apply in uneven chunks, mixed with single steps, gives the same results as the boxed function.
+     */
+    private static void assertSameAsFunction(double[] input, Function<Double, Double> function, StatefulDoubleOperator operator) {
+        double[] result = new double[input.length];
+        int i = 0;
+        for (int len = 0; i < input.length; len = (len * 3 + 1) % 50) {
+            if (len == 0) {
+                result[i] = operator.next(input[i]);
+                i++;
+            } else {
+                int n = Math.min(len, input.length - i);
+                operator.apply(input, i, n, result);
+                i += n;
+            }
+        }
+        for (i = 0; i < input.length; i++) {
+            assertThat(result[i]).isEqualTo(function.apply(input[i]));
+        }
+    }
+
+    @Test
+    public void operator_inPlace() {
+        double[] values = {1.0, 2.0, 4.0, 8.0, 16.0};
+        DirtyFunctions.movingSumOperator(3).apply(values, 1, 3, values);
+        assertThat(values).containsExactly(1.0, 2.0, 6.0, 14.0, 16.0);
+    }
+
+    @Test
+    public void operator_adapters() {
+        assertThat(DirtyFunctions.movingAvg(1)).isSameAs(Function.identity());
+        StatefulDoubleOperator operator = StatefulDoubleOperator.of(DirtyFunctions.movingSum(2));
+        assertThat(operator.next(1.0)).isEqualTo(1.0);
+        assertThat(operator.next(2.0)).isEqualTo(3.0);
+        assertThat(operator.asFunction().apply(4.0)).isEqualTo(6.0);
+    }
+
+    @Test
+    public void operators_checkpoint() throws IOException {
+        Random random = new Random(5);
+        double[] input = random.doubles(2000).map(d -> Math.floor(d * 100)).toArray();
+        for (int period : new int[]{1, 3, 50, 700}) {
+            assertCheckpoint(input, () -> DirtyFunctions.movingAvgOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.movingAvgExpOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.movingSumOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.movingMinOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.movingMaxOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.shiftOperator(period));
+            assertCheckpoint(input, () -> DirtyFunctions.movingQuantileOperator(period, 0.7, true));
+            assertCheckpoint(input, () -> DirtyFunctions.movingQuantileApproxOperator(period, 0.7, 0.02));
+        }
+    }
+
+    /**
+     * An operator restored from checkpoints taken at various points continues exactly as the original one.
+     */
+    private static void assertCheckpoint(double[] input, Supplier<StatefulDoubleOperator> factory) throws IOException {
+        for (int checkpoint : new int[]{0, 1, 10, 999}) {
+            StatefulDoubleOperator original = factory.get();
+            double[] expected = new double[input.length];
+            original.apply(input, 0, input.length, expected);
+
+            StatefulDoubleOperator before = factory.get();
+            before.apply(input, 0, checkpoint, new double[input.length]);
+            StatefulDoubleOperator restored = factory.get();
+            restored.loadState(before.saveState());
+
+            double[] result = new double[input.length];
+            restored.apply(input, checkpoint, input.length - checkpoint, result);
+            for (int i = checkpoint; i < input.length; i++) {
+                assertThat(result[i]).isEqualTo(expected[i]);
+            }
+        }
+    }
+
+    @Test
+    public void operators_incompatibleCheckpoint() {
+        byte[] state = DirtyFunctions.movingSumOperator(3).saveState();
+        assertThatThrownBy(() -> DirtyFunctions.movingAvgOperator(3).loadState(state)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> DirtyFunctions.movingSumOperator(4).loadState(state)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> DirtyFunctions.movingSumOperator(3).loadState(Arrays.copyOf(state, 3))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> DirtyFunctions.movingSumOperator(3).loadState(Arrays.copyOf(state, state.length + 1))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> StatefulDoubleOperator.of(DirtyFunctions.movingSum(3)).saveState()).isInstanceOf(UnsupportedOperationException.class);
+        byte[] identityState = DirtyFunctions.movingSumOperator(1).saveState();
+        assertThatThrownBy(() -> DirtyFunctions.movingAvgOperator(1).loadState(identityState)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> StatefulDoubleOperator.identity().loadState(identityState)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> StatefulDoubleOperator.identity().loadState(new byte[0])).isInstanceOf(IOException.class);
+
+        Random random = new Random(5);
+        double[] input = random.doubles(2000).map(d -> Math.floor(d * 100)).toArray();
+        for (int period : new int[]{1, 3, 50, 700}) {
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingAvgOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingAvgExpOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingSumOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingMinOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingMaxOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.shiftOperator(period));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingQuantileOperator(period, 0.7, true));
+            assertFailedLoadKeepsState(input, () -> DirtyFunctions.movingQuantileApproxOperator(period, 0.7, 0.02));
+        }
+    }
+
+    /**
+     * An operator that fails to load a truncated or too long checkpoint continues as if nothing happened.
+     */
+    private static void assertFailedLoadKeepsState(double[] input, Supplier<StatefulDoubleOperator> factory) {
+        int checkpoint = 999;
+        StatefulDoubleOperator original = factory.get();
+        double[] expected = new double[input.length];
+        original.apply(input, 0, input.length, expected);
+
+        StatefulDoubleOperator other = factory.get();
+        other.apply(input, 1000, 500, new double[input.length]);
+        byte[] state = other.saveState();
+
+        StatefulDoubleOperator operator = factory.get();
+        operator.apply(input, 0, checkpoint, new double[input.length]);
+        assertThatThrownBy(() -> operator.loadState(Arrays.copyOf(state, state.length - 1))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> operator.loadState(Arrays.copyOf(state, state.length + 1))).isInstanceOf(IOException.class);
+
+        double[] result = new double[input.length];
+        operator.apply(input, checkpoint, input.length - checkpoint, result);
+        for (int i = checkpoint; i < input.length; i++) {
+            assertThat(result[i]).isEqualTo(expected[i]);
+        }
+    }
 }
@@ -0,0 +1,91 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DoubleOrderStatisticTreeTest {
+
+    @Test
+    public void invalidCapacity() {
+        assertThatThrownBy(() -> new DoubleOrderStatisticTree(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void addRemoveGet() {
+        DoubleOrderStatisticTree tree = new DoubleOrderStatisticTree(5);
+        tree.add(3.0);
+        tree.add(1.0);
+        tree.add(2.0);
+        tree.add(2.0);
+        assertThat(tree.size()).isEqualTo(4);
+        assertThat(tree.get(0)).isEqualTo(1.0);
+        assertThat(tree.get(1)).isEqualTo(2.0);
+        assertThat(tree.get(2)).isEqualTo(2.0);
+        assertThat(tree.get(3)).isEqualTo(3.0);
+
+        assertThat(tree.remove(2.0)).isTrue();
+        assertThat(tree.remove(5.0)).isFalse();
+        assertThat(tree.size()).isEqualTo(3);
+        assertThat(tree.get(1)).isEqualTo(2.0);
+        assertThat(tree.get(2)).isEqualTo(3.0);
+
+        assertThatThrownBy(() -> tree.get(3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> tree.get(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void capacityExceeded() {
+        DoubleOrderStatisticTree tree = new DoubleOrderStatisticTree(1);
+        tree.add(1.0);
+        assertThatThrownBy(() -> tree.add(2.0)).isInstanceOf(IllegalStateException.class);
+        tree.clear();
+        assertThat(tree.isEmpty()).isTrue();
+        tree.add(2.0);
+        assertThat(tree.get(0)).isEqualTo(2.0);
+    }
+
+    @Test
+    public void sameAsSortedList() {
+        Random random = new Random(3);
+        DoubleOrderStatisticTree tree = new DoubleOrderStatisticTree(100);
+        List<Double> list = new ArrayList<>();
+        for (int step = 0; step < 10000; step++) {
+            if (list.size() < 100 && (list.isEmpty() || random.nextBoolean())) {
+                double d = random.nextInt(30);
+                tree.add(d);
+                list.add(d);
+            } else {
+                Double d = list.remove(random.nextInt(list.size()));
+                assertThat(tree.remove(d)).isTrue();
+            }
+            Collections.sort(list);
+            assertThat(tree.size()).isEqualTo(list.size());
+            if (!list.isEmpty()) {
+                int rank = random.nextInt(list.size());
+                assertThat(tree.get(rank)).isEqualTo(list.get(rank));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExpressionTest {
+
+    private final Series<Instant, Double> ibm = InstantDoubleSeries.create("ibm",
+            InstantSortedArray.ofMillis(1, 2, 3, 5, 8), DoubleArray.of(100, 110, 120, 115, 130), -1.0);
+
+    private final Series<Instant, Double> apple = InstantDoubleSeries.create("apple",
+            InstantSortedArray.ofMillis(2, 3, 4, 8, 9), DoubleArray.of(210, 209, 208, 220, 230), 0.0);
+
+    @Test
+    public void sameResultAsEagerOperations() {
+
+        Series<Instant, Double> eager = Moving.avg(Binary.add(Binary.mul(ibm, 100), Binary.mul(apple, 200)), 3);
+
+        InstantDoubleSeries lazy = Expression.of(ibm).mul(100)
+                .add(Expression.of(apple).mul(200))
+                .movingAvg(3)
+                .evaluate();
+
+        assertThat(lazy.values().asList()).isEqualTo(eager.values().asList());
+        assertThat(lazy.domain()).isSameAs(ibm.domain());
+        assertThat(lazy.defaultValue()).isEqualTo(-1.0);
+        assertThat(lazy.name()).isEqualTo(eager.name());
+    }
+
+    @Test
+    public void movingOperandIsEvaluatedOnItsOwnDomain() {
+
+        Series<Instant, Double> eager = Binary.sub(ibm, Moving.sum(apple, 2));
+
+        InstantDoubleSeries lazy = Expression.of(ibm).sub(Expression.of(apple).movingSum(2)).evaluate();
+
+        assertThat(lazy.values().asList()).isEqualTo(eager.values().asList());
+    }
+
+    @Test
+    public void sameDomain() {
+        InstantDoubleSeries lazy = Expression.of(ibm).add(ibm).sqrt().evaluate();
+        assertThat(lazy.values().asList()).isEqualTo(Unary.sqrt(Binary.add(ibm, ibm)).values().asList());
+    }
+
+    @Test
+    public void evaluateTwice() {
+        Expression expression = Expression.of(ibm).movingAvgExp(2).shift(1);
+        assertThat(expression.evaluate().values().asList())
+                .isEqualTo(expression.evaluate().values().asList())
+                .isEqualTo(Moving.shift(Moving.avgExp(ibm, 2), 1).values().asList());
+    }
+
+    @Test
+    public void invalidPeriod() {
+        assertThatThrownBy(() -> Expression.of(ibm).movingAvg(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
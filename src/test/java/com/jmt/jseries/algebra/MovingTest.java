@@ -19,11 +19,14 @@ import com.jmt.jseries.InstantDoubleSeries;
 import com.jmt.jseries.Series;
 import com.jmt.jseries.array.DoubleArray;
 import com.jmt.jseries.array.InstantSortedArray;
+import org.assertj.core.data.Offset;
 import org.junit.Test;
 
 import java.time.Instant;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class MovingTest {
 
@@ -123,5 +126,56 @@ public class MovingTest {
         assertThat(result.defaultValue()).isEqualTo(src.defaultValue());
         assertThat(result.values().asList()).containsExactly(1.0, 1.0, 2.0, 3.0);
         assertThat(result).hasToString("Qtl(foo,3,0.5)");
+
+        Series<Instant, Double> interpolated = Moving.quantile(src, 3, 0.5, true);
+        assertThat(interpolated.values().asList()).containsExactly(1.0, 1.5, 2.0, 3.0);
+        assertThat(interpolated).hasToString("QtlI(foo,3,0.5)");
+        assertThat(Moving.quantile(src, 3, 0.5, false)).hasToString("Qtl(foo,3,0.5)");
+    }
+
+    @Test
+    public void extend() {
+        Random random = new Random(9);
+        int size = 500;
+        long[] millis = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            millis[i] = i * 10L;
+            values[i] = Math.floor(random.nextDouble() * 100);
+        }
+        InstantDoubleSeries src = InstantDoubleSeries.create("foo", InstantSortedArray.ofMillis(millis), DoubleArray.of(values), -1.0);
+        for (int previousSize : new int[]{0, 5, 300, 500}) {
+            InstantDoubleSeries prefix = src.slice(0, previousSize);
+            for (int period : new int[]{1, 7, 50}) {
+                assertExtension(Moving.avg(src, period, Moving.avg(prefix, period)), Moving.avg(src, period), 1e-9);
+                assertExtension(Moving.avgExp(src, period, Moving.avgExp(prefix, period)), Moving.avgExp(src, period), 0.0);
+                assertExtension(Moving.sum(src, period, Moving.sum(prefix, period)), Moving.sum(src, period), 1e-9);
+                assertExtension(Moving.min(src, period, Moving.min(prefix, period)), Moving.min(src, period), 0.0);
+                assertExtension(Moving.max(src, period, Moving.max(prefix, period)), Moving.max(src, period), 0.0);
+                assertExtension(Moving.shift(src, period, Moving.shift(prefix, period)), Moving.shift(src, period), 0.0);
+                assertExtension(Moving.quantile(src, period, 0.4, Moving.quantile(prefix, period, 0.4)), Moving.quantile(src, period, 0.4), 0.0);
+                assertExtension(Moving.quantile(src, period, 0.4, true, Moving.quantile(prefix, period, 0.4, true)),
+                        Moving.quantile(src, period, 0.4, true), 0.0);
+            }
+        }
+    }
+
+    private static void assertExtension(Series<Instant, Double> extended, Series<Instant, Double> expected, double tolerance) {
+        assertThat(extended).hasToString(expected.toString());
+        assertThat(extended.domain().asList()).isEqualTo(expected.domain().asList());
+        assertThat(extended.defaultValue()).isEqualTo(expected.defaultValue());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(extended.value(i)).isCloseTo(expected.value(i), Offset.offset(tolerance));
+        }
+    }
+
+    @Test
+    public void extend_notAPrefix() {
+        Series<Instant, Double> src = InstantDoubleSeries.create("foo",
+                InstantSortedArray.ofMillis(1, 2, 3), DoubleArray.of(1, 2, 2), -1.0);
+        Series<Instant, Double> other = InstantDoubleSeries.create("foo",
+                InstantSortedArray.ofMillis(1, 5), DoubleArray.of(1, 2), -1.0);
+        assertThatThrownBy(() -> Moving.avg(src, 2, Moving.avg(other, 2))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Moving.avg(src.slice(0, 1), 2, Moving.avg(src, 2))).isInstanceOf(IllegalArgumentException.class);
     }
 }
@@ -0,0 +1,79 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.Series;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelMovingTest {
+
+    //Large enough to be split into several chunks
+    private static final int SIZE = 200_000;
+
+    private final Series<Instant, Double> src = InstantDoubleSeries.create("foo",
+            InstantSortedArray.linspace(0, SIZE, 1),
+            DoubleArray.of(new Random(1).doubles(SIZE).map(d -> Math.floor(d * 1000)).toArray()),
+            -1.0);
+
+    @Test
+    public void sameAsSequential() {
+        assertSame(ParallelMoving.avg(src, 100), Moving.avg(src, 100));
+        assertSame(ParallelMoving.sum(src, 100), Moving.sum(src, 100));
+        assertSame(ParallelMoving.min(src, 1000), Moving.min(src, 1000));
+        assertSame(ParallelMoving.max(src, 1000), Moving.max(src, 1000));
+        assertSame(ParallelMoving.shift(src, 10), Moving.shift(src, 10));
+        assertSame(ParallelMoving.quantile(src, 50, 0.3), Moving.quantile(src, 50, 0.3));
+        assertSame(ParallelMoving.avgExp(src, 20), Moving.avgExp(src, 20));
+        assertSame(ParallelMoving.avgExp(src, 1), Moving.avgExp(src, 1));
+    }
+
+    @Test
+    public void smallSeries() {
+        Series<Instant, Double> small = InstantDoubleSeries.create("foo",
+                InstantSortedArray.ofMillis(1, 2, 3), DoubleArray.of(1, 2, 2), -1.0);
+        assertSame(ParallelMoving.avg(small, 2), Moving.avg(small, 2));
+        assertSame(ParallelMoving.avgExp(small, 2), Moving.avgExp(small, 2));
+    }
+
+    @Test
+    public void invalidPeriod() {
+        assertThatThrownBy(() -> ParallelMoving.avg(src, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ParallelMoving.avgExp(src, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void assertSame(Series<Instant, Double> actual, Series<Instant, Double> expected) {
+        assertThat(actual.name()).isEqualTo(expected.name());
+        assertThat(actual.domain()).isSameAs(expected.domain());
+        assertThat(actual.defaultValue()).isEqualTo(expected.defaultValue());
+        List<Double> actualValues = actual.values().asList();
+        List<Double> expectedValues = expected.values().asList();
+        assertThat(actualValues).hasSameSizeAs(expectedValues);
+        for (int i = 0; i < actualValues.size(); i++) {
+            assertThat(actualValues.get(i)).isCloseTo(expectedValues.get(i), Offset.offset(1e-6));
+        }
+    }
+}
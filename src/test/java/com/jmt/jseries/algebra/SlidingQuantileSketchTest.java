@@ -0,0 +1,83 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.algebra;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SlidingQuantileSketchTest {
+
+    @Test
+    public void invalidArguments() {
+        assertThatThrownBy(() -> new SlidingQuantileSketch(0, 0.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingQuantileSketch(10, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingQuantileSketch(10, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingQuantileSketch(10, 0.1).get(0.5)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void windowSize() {
+        SlidingQuantileSketch sketch = new SlidingQuantileSketch(1000, 0.02);
+        for (int i = 0; i < 999; i++) {
+            sketch.add(i);
+            assertThat(sketch.size()).isEqualTo(i + 1);
+        }
+        for (int i = 0; i < 5000; i++) {
+            sketch.add(i);
+            assertThat(sketch.size()).isBetween(991, 1000);
+        }
+    }
+
+    @Test
+    public void rankErrorWithinBound() {
+        assertRankErrorWithinBound(5000, 0.01, 20000, 997);
+    }
+
+    @Test
+    public void rankErrorWithinBound_compactedBlock() {
+        //Blocks of 1000 values, kept in several levels of compactors
+        assertRankErrorWithinBound(200000, 0.01, 500000, 9973);
+    }
+
+    private static void assertRankErrorWithinBound(int period, double rankError, int count, int step) {
+        Random random = new Random(5);
+        double[] input = random.doubles(count).map(d -> d * d).toArray();
+        SlidingQuantileSketch sketch = new SlidingQuantileSketch(period, rankError);
+        for (int i = 0; i < input.length; i++) {
+            sketch.add(input[i]);
+            if (i % step == 0) {
+                double[] window = Arrays.copyOfRange(input, Math.max(0, i - period + 1), i + 1);
+                Arrays.sort(window);
+                for (double q : new double[]{0.01, 0.5, 0.99}) {
+                    double result = sketch.get(q);
+                    int expectedRank = Math.max((int) Math.round(q * window.length), 1);
+                    int lowestRank = -Arrays.binarySearch(window, Math.nextDown(result)) - 1;
+                    assertThat((double) Math.abs(lowestRank + 1 - expectedRank)).isLessThanOrEqualTo(rankError * period);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void exactForSmallWindow() {
+        assertThat(DirtyFunctions.movingQuantileApprox(10, 0.5, 0.01).apply(3.0)).isEqualTo(3.0);
+    }
+}
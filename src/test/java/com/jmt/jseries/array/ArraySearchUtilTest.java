@@ -18,6 +18,8 @@ package com.jmt.jseries.array;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class ArraySearchUtilTest extends Assert {
 
     @Test
@@ -59,7 +61,7 @@ public class ArraySearchUtilTest extends Assert {
         assertEquals(-1, ArraySearchUtil.findLE(array, 1));
         assertEquals(0, ArraySearchUtil.findLE(array, 2));
         assertEquals(0, ArraySearchUtil.findLE(array, 3));
-        assertEquals(1, ArraySearchUtil.findLE(array, 5));
+        assertEquals(2, ArraySearchUtil.findLE(array, 5));
         assertEquals(2, ArraySearchUtil.findLE(array, 6));
         assertEquals(3, ArraySearchUtil.findLE(array, 8));
         assertEquals(3, ArraySearchUtil.findLE(array, 9));
@@ -174,7 +176,7 @@ public class ArraySearchUtilTest extends Assert {
         assertEquals(-1, ArraySearchUtil.findLE(array, "1"));
         assertEquals(0, ArraySearchUtil.findLE(array, "2"));
         assertEquals(0, ArraySearchUtil.findLE(array, "3"));
-        assertEquals(1, ArraySearchUtil.findLE(array, "5"));
+        assertEquals(2, ArraySearchUtil.findLE(array, "5"));
         assertEquals(2, ArraySearchUtil.findLE(array, "6"));
         assertEquals(3, ArraySearchUtil.findLE(array, "8"));
         assertEquals(3, ArraySearchUtil.findLE(array, "9"));
@@ -249,4 +251,91 @@ public class ArraySearchUtilTest extends Assert {
         assertEquals(-5, ArraySearchUtil.find(array, "9"));
         assertEquals(-5, ArraySearchUtil.find(array, "Z"));
     }
+
+    @Test
+    public void longFindLE_batch() {
+        long[] array = {1, 3, 3, 3, 5, 7, 7, 9, 11, 11, 11, 11, 11, 11, 20};
+        long[] queries = {-5, 0, 1, 1, 2, 3, 4, 7, 8, 10, 11, 12, 19, 20, 21, 100};
+        int[] out = new int[queries.length];
+        ArraySearchUtil.findLE(array, queries, out);
+        for (int k = 0; k < queries.length; k++) {
+            int expected = -1;
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] <= queries[k]) expected = i;
+            }
+            assertEquals("query " + queries[k], expected, out[k]);
+        }
+
+        ArraySearchUtil.findLE(array, 4, 8, queries, out);
+        assertEquals(3, out[0]);
+        assertEquals(6, out[7]);
+        assertEquals(7, out[15]);
+
+        try {
+            ArraySearchUtil.findLE(array, new long[]{2, 1}, new int[2]);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void longFindLE_hint() {
+        long[] array = {1, 3, 3, 3, 5, 7, 7, 9, 11, 11, 11, 11, 11, 11, 20};
+        Long[] boxed = new Long[array.length];
+        for (int i = 0; i < array.length; i++) {
+            boxed[i] = array[i];
+        }
+        for (long x = -1; x <= 22; x++) {
+            int expected = -1;
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] <= x) expected = i;
+            }
+            //Any hint gives the same result, forward or backward
+            for (int hint = -1; hint < array.length; hint++) {
+                assertEquals("x " + x + " hint " + hint, expected, ArraySearchUtil.findLE(array, 0, array.length, x, hint));
+                assertEquals("x " + x + " hint " + hint, expected, ArraySearchUtil.findLE(boxed, 0, boxed.length, x, hint));
+            }
+        }
+        assertEquals(3, ArraySearchUtil.findLE(array, 4, 8, 2, 3));
+        assertEquals(6, ArraySearchUtil.findLE(array, 4, 8, 8, 3));
+        assertEquals(7, ArraySearchUtil.findLE(array, 4, 8, 100, 5));
+    }
+
+    @Test
+    public void longBounds() {
+        long[] array = new long[]{2, 5, 5, 5, 8};
+        assertEquals(0, ArraySearchUtil.lowerBound(array, 1));
+        assertEquals(1, ArraySearchUtil.lowerBound(array, 5));
+        assertEquals(4, ArraySearchUtil.upperBound(array, 5));
+        assertEquals(5, ArraySearchUtil.upperBound(array, 8));
+        assertArrayEquals(new int[]{1, 4}, ArraySearchUtil.equalRange(array, 5));
+        assertArrayEquals(new int[]{4, 4}, ArraySearchUtil.equalRange(array, 6));
+        assertArrayEquals(new int[]{2, 4}, ArraySearchUtil.equalRange(array, 2, 5, 5));
+        assertEquals(1, ArraySearchUtil.find(array, 5));
+        assertEquals(2, ArraySearchUtil.find(array, 2, 5, 5));
+        assertEquals(-3, ArraySearchUtil.find(array, 2, 5, 2));
+    }
+
+    @Test
+    public void longBounds_longRunOfDuplicates() {
+        long[] array = new long[100_001];
+        Arrays.fill(array, 1, 100_000, 7);
+        array[100_000] = 9;
+        assertEquals(1, ArraySearchUtil.findGE(array, 7));
+        assertEquals(1, ArraySearchUtil.find(array, 7));
+        assertEquals(100_000, ArraySearchUtil.findGT(array, 7));
+        assertEquals(0, ArraySearchUtil.findLT(array, 7));
+        assertEquals(99_999, ArraySearchUtil.findLE(array, 7));
+    }
+
+    @Test
+    public void genericBounds() {
+        String[] array = new String[]{"2", "5", "5", "5", "8"};
+        assertEquals(1, ArraySearchUtil.lowerBound(array, "5"));
+        assertEquals(4, ArraySearchUtil.upperBound(array, "5"));
+        assertArrayEquals(new int[]{1, 4}, ArraySearchUtil.equalRange(array, "5"));
+        assertArrayEquals(new int[]{0, 0}, ArraySearchUtil.equalRange(array, "1"));
+        assertEquals(1, ArraySearchUtil.find(array, "5"));
+        assertEquals(-5, ArraySearchUtil.find(array, "6"));
+    }
 }
@@ -0,0 +1,107 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.algebra.Moving;
+import com.jmt.jseries.algebra.ParallelMoving;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompressedDoubleArrayTest {
+
+    private static double[] prices(int size, long seed) {
+        Random random = new Random(seed);
+        double[] result = new double[size];
+        double price = 100.0;
+        for (int i = 0; i < size; i++) {
+            //Prices in cents, often unchanged
+            if (random.nextInt(3) == 0) {
+                price = Math.round(price * 100 + random.nextInt(21) - 10) / 100.0;
+            }
+            result[i] = price;
+        }
+        return result;
+    }
+
+    @Test
+    public void decode() {
+        double[] values = prices(1000, 1);
+        for (int blockSize : new int[]{1, 3, 64}) {
+            CompressedDoubleArray array = CompressedDoubleArray.of(blockSize, DoubleArray.of(values));
+            assertThat(array.size()).isEqualTo(1000);
+            assertThat(array.toDoubleArray()).isEqualTo(values);
+            for (int i = 0; i < values.length; i++) {
+                assertThat(array.getDouble(i)).isEqualTo(values[i]);
+            }
+            PrimitiveIterator.OfDouble iterator = array.doubleIterator();
+            for (double value : values) {
+                assertThat(iterator.nextDouble()).isEqualTo(value);
+            }
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void getDoubles() {
+        double[] values = prices(300, 2);
+        CompressedDoubleArray array = CompressedDoubleArray.of(7, DoubleArray.of(values));
+        for (int from = 0; from < 30; from += 4) {
+            for (int to = from; to < 300; to += 37) {
+                double[] result = new double[to - from + 1];
+                array.getDoubles(from, to, result, 1);
+                assertThat(Arrays.copyOfRange(result, 1, result.length)).isEqualTo(Arrays.copyOfRange(values, from, to));
+            }
+        }
+        assertThatThrownBy(() -> array.getDoubles(290, 301, new double[20], 0))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void specialValues() {
+        double[] values = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MAX_VALUE, -1.0, 1.0, 1.0 + Math.ulp(1.0), 3.0, Double.longBitsToDouble(1L << 63 | 1)};
+        CompressedDoubleArray array = CompressedDoubleArray.of(values);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(array.getDouble(i))).isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+
+    @Test
+    public void compression() {
+        CompressedDoubleArray array = CompressedDoubleArray.of(prices(10000, 3));
+        assertThat(array.compressedSize()).isLessThan(10000 * 8 / 3);
+        assertThat(CompressedDoubleArray.of().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void moving() {
+        double[] values = prices(5000, 4);
+        InstantDoubleSeries plain = InstantDoubleSeries.create("s", InstantSortedArray.linspace(0, 5000, 1), DoubleArray.of(values));
+        InstantDoubleSeries compressed = InstantDoubleSeries.create("s", plain.domain(), CompressedDoubleArray.of(values));
+        assertThat(compressed.values()).isInstanceOf(CompressedDoubleArray.class);
+        assertThat(Moving.avg(compressed, 20).values().asList()).isEqualTo(Moving.avg(plain, 20).values().asList());
+        assertThat(Moving.max(compressed, 20).values().asList()).isEqualTo(Moving.max(plain, 20).values().asList());
+        assertThat(ParallelMoving.avgExp(compressed, 20).values().asList()).isEqualTo(ParallelMoving.avgExp(plain, 20).values().asList());
+        assertThat(CompressedDoubleArray.of(values).map(x -> x * 2).asList()).isEqualTo(DoubleArray.of(values).map(x -> x * 2).asList());
+    }
+}
@@ -0,0 +1,136 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompressedInstantSortedArrayTest {
+
+    private static long[] randomTicks(int size, long seed) {
+        Random random = new Random(seed);
+        long[] result = new long[size];
+        long time = -50;
+        for (int i = 0; i < size; i++) {
+            //Mostly regular, with duplicates and occasional gaps
+            int r = random.nextInt(10);
+            time += r == 0 ? 0 : r == 1 ? random.nextInt(1000) : 10;
+            result[i] = time;
+        }
+        return result;
+    }
+
+    @Test
+    public void decode() {
+        long[] values = randomTicks(1000, 1);
+        for (int blockSize : new int[]{1, 3, 64}) {
+            CompressedInstantSortedArray array = CompressedInstantSortedArray.ofMillis(blockSize, values);
+            assertThat(array.size()).isEqualTo(1000);
+            assertThat(array.toMillisArray()).isEqualTo(values);
+            for (int i = 0; i < values.length; i++) {
+                assertThat(array.getMillis(i)).isEqualTo(values[i]);
+            }
+            PrimitiveIterator.OfLong iterator = array.millisIterator();
+            for (long value : values) {
+                assertThat(iterator.nextLong()).isEqualTo(value);
+            }
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    public void compression() {
+        CompressedInstantSortedArray array = CompressedInstantSortedArray.of(InstantSortedArray.linspace(1_500_000_000_000L, 1_500_010_000_000L, 1000));
+        assertThat(array.size()).isEqualTo(10000);
+        assertThat(array.compressedSize()).isLessThanOrEqualTo(array.size());
+        assertThat(array.getMillis(9999)).isEqualTo(1_500_009_999_000L);
+    }
+
+    @Test
+    public void extremeValues() {
+        long[] values = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MAX_VALUE};
+        CompressedInstantSortedArray array = CompressedInstantSortedArray.ofMillis(4, values);
+        assertThat(array.toMillisArray()).isEqualTo(values);
+        assertThat(array.findLE(Long.MAX_VALUE)).isEqualTo(6);
+        assertThat(array.findGE(Long.MIN_VALUE)).isEqualTo(0);
+    }
+
+    @Test
+    public void find_sameAsNaive() {
+        long[] values = randomTicks(500, 2);
+        for (int blockSize : new int[]{1, 2, 7, 64}) {
+            CompressedInstantSortedArray array = CompressedInstantSortedArray.ofMillis(blockSize, values);
+            for (long x = values[0] - 20; x <= values[values.length - 1] + 20; x += 3) {
+                int le = -1;
+                int lt = -1;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] <= x) le = i;
+                    if (values[i] < x) lt = i;
+                }
+                assertThat(array.findLE(x)).as("findLE %s", x).isEqualTo(le);
+                assertThat(array.findLT(x)).as("findLT %s", x).isEqualTo(lt);
+                assertThat(array.findGT(x)).as("findGT %s", x).isEqualTo(le + 1);
+                assertThat(array.findGE(x)).as("findGE %s", x).isEqualTo(lt + 1);
+                int found = array.find(x);
+                if (le > lt) {
+                    assertThat(found).as("find %s", x).isEqualTo(lt + 1);
+                } else {
+                    assertThat(found).isEqualTo(-(lt + 1) - 1);
+                }
+                assertThat(array.findLE(Instant.ofEpochMilli(x))).isEqualTo(le);
+            }
+        }
+    }
+
+    @Test
+    public void find_duplicates() {
+        long[] values = {1, 3, 3, 3, 3, 3, 7, 7};
+        for (int blockSize : new int[]{1, 2, 4}) {
+            CompressedInstantSortedArray array = CompressedInstantSortedArray.ofMillis(blockSize, values);
+            assertThat(array.find(3)).isEqualTo(1);
+            assertThat(array.find(7)).isEqualTo(6);
+            assertThat(array.find(5)).isEqualTo(-7);
+            assertThat(array.find(3)).isEqualTo(InstantSortedArray.ofMillis(values).find(3));
+        }
+    }
+
+    @Test
+    public void map() {
+        CompressedInstantSortedArray array = CompressedInstantSortedArray.ofMillis(2, 1, 2, 5, 8, 9);
+        assertThat(array.map(DoubleArray.builder(0), t -> (double) t.toEpochMilli()).asList())
+                .containsExactly(1.0, 2.0, 5.0, 8.0, 9.0);
+        assertThat(array.mapSorted(t -> t.plusMillis(1))).isInstanceOf(InstantSortedArray.class);
+    }
+
+    @Test
+    public void emptyAndInvalid() {
+        CompressedInstantSortedArray empty = CompressedInstantSortedArray.ofMillis();
+        assertThat(empty.size()).isEqualTo(0);
+        assertThat(empty.findLE(5)).isEqualTo(-1);
+        assertThat(empty.findGE(5)).isEqualTo(0);
+        assertThat(empty.find(5)).isEqualTo(-1);
+        assertThatThrownBy(() -> CompressedInstantSortedArray.ofMillis(3, 2, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompressedInstantSortedArray.ofMillis(0, 1, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
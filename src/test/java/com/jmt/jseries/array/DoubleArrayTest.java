@@ -17,6 +17,11 @@ package com.jmt.jseries.array;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import static org.assertj.core.api.Assertions.*;
 
 public class DoubleArrayTest {
@@ -87,4 +92,63 @@ public class DoubleArrayTest {
     	assertThatThrownBy(() -> DoubleArray.linspace(0, -5, 1))
 			.isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    public void builder() {
+        DoubleArray.DoubleArrayBuilder builder = DoubleArray.builder(2);
+        builder.add(1.0).add(Double.valueOf(2.0)).add(3.0);
+        assertThat(builder.size()).isEqualTo(3);
+        assertThat(builder.build().asList()).containsExactly(1.0, 2.0, 3.0);
+    }
+
+    @Test
+    public void builder_continueAfterBuild() {
+        DoubleArray.DoubleArrayBuilder builder = DoubleArray.builder(1);
+        builder.add(1.0);
+        DoubleArray first = builder.build();
+        builder.add(2.0);
+        assertThat(first.asList()).containsExactly(1.0);
+        assertThat(builder.build().asList()).containsExactly(1.0, 2.0);
+    }
+
+    @Test
+    public void builder_negativeSizeHint() {
+        assertThatThrownBy(() -> DoubleArray.builder(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void slice() {
+        DoubleArray array = DoubleArray.of(1.0, 2.0, 3.0, 4.0, 5.0);
+        DoubleArray slice = array.slice(1, 4);
+        assertThat(slice.size()).isEqualTo(3);
+        assertThat(slice.asList()).containsExactly(2.0, 3.0, 4.0);
+        assertThat(slice.getDouble(0)).isEqualTo(2.0);
+        assertThat(slice.toDoubleArray()).containsExactly(2.0, 3.0, 4.0);
+        assertThat(slice.slice(1, 3).asList()).containsExactly(3.0, 4.0);
+        assertThat(slice.slice(3, 3).size()).isEqualTo(0);
+        assertThat(slice.map(x -> x * 2).asList()).containsExactly(4.0, 6.0, 8.0);
+
+        double[] copy = new double[2];
+        slice.getDoubles(1, 3, copy, 0);
+        assertThat(copy).containsExactly(3.0, 4.0);
+
+        assertThatThrownBy(() -> slice.getDouble(3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> slice.getDouble(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> array.slice(2, 6)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> array.slice(3, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void slice_serializedCompact() throws Exception {
+        DoubleArray slice = DoubleArray.of(1.0, 2.0, 3.0, 4.0).slice(1, 3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(slice);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            DoubleArray copy = (DoubleArray) in.readObject();
+            assertThat(copy.asList()).containsExactly(2.0, 3.0);
+            assertThat(copy.getDouble(1)).isEqualTo(3.0);
+        }
+    }
 }
@@ -82,4 +82,11 @@ public class GenericArrayTest {
     private void fail() {
         Assert.fail();
     }
+
+    @Test
+    public void slice() {
+        GenericArray<String> slice = GenericArray.of("a", "b", "c", "d").slice(1, 3);
+        assertThat(slice.asList()).containsExactly("b", "c");
+        assertThat(slice.slice(1, 2).asList()).containsExactly("c");
+    }
 }
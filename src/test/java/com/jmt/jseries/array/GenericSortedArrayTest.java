@@ -99,4 +99,20 @@ public class GenericSortedArrayTest {
     private void assertEquals(Object v1, Object v2) {
         Assert.assertEquals(v1, v2);
     }
+
+    @Test
+    public void slice() {
+        GenericSortedArray<String> slice = GenericSortedArray.of("a", "b", "d", "f", "g").slice(1, 4);
+        assertThat(slice.asList()).containsExactly("b", "d", "f");
+        assertThat(slice.find("d")).isEqualTo(1);
+        assertThat(slice.find("c")).isEqualTo(-2);
+        assertThat(slice.find("a")).isEqualTo(-1);
+        assertThat(slice.find("g")).isEqualTo(-4);
+        assertThat(slice.findLE("a")).isEqualTo(-1);
+        assertThat(slice.findLE("e")).isEqualTo(1);
+        assertThat(slice.findGE("e")).isEqualTo(2);
+        assertThat(slice.findGT("g")).isEqualTo(3);
+        assertThat(slice.findLT("b")).isEqualTo(-1);
+        assertThatThrownBy(() -> slice.get(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
 }
@@ -20,6 +20,8 @@ import org.junit.Test;
 import java.time.Instant;
 import java.util.stream.LongStream;
 
+import java.util.Arrays;
+
 import static com.jmt.testutil.Parse.dateTime;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -154,9 +156,53 @@ public class InstantSortedArrayTest {
 			.isInstanceOf(IllegalArgumentException.class);
     }
     
+    @Test
+    public void builder() {
+        InstantSortedArray.SortedInstantArrayBuilder builder = InstantSortedArray.builder(0);
+        builder.addMillis(2).add(Instant.ofEpochMilli(4)).addMillis(4);
+        assertThat(builder.size()).isEqualTo(3);
+        assertThat(builder.build().asList()).containsExactly(toInstants(2L, 4L, 4L));
+    }
+
+    @Test
+    public void builder_notSorted() {
+        InstantSortedArray.SortedInstantArrayBuilder builder = InstantSortedArray.builder(2);
+        builder.addMillis(2).addMillis(1);
+        assertThatThrownBy(builder::build)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not in ascending order");
+    }
+
     private Instant[] toInstants(long... millis) {
     	return LongStream.of(millis)
     			.mapToObj(t -> Instant.ofEpochMilli(t))
     			.toArray(i -> new Instant[i]);
     }
+
+    @Test
+    public void slice_searchesRelativeToSlice() {
+        long[] values = {1, 3, 3, 3, 5, 7, 7, 9, 11};
+        InstantSortedArray array = InstantSortedArray.ofMillis(values);
+        for (int from = 0; from <= values.length; from++) {
+            for (int to = from; to <= values.length; to++) {
+                InstantSortedArray slice = array.slice(from, to);
+                InstantSortedArray expected = InstantSortedArray.ofMillis(Arrays.copyOfRange(values, from, to));
+                assertThat(slice.toMillisArray()).isEqualTo(expected.toMillisArray());
+                for (long x = 0; x <= 12; x++) {
+                    assertThat(slice.findGT(x)).isEqualTo(expected.findGT(x));
+                    assertThat(slice.findLT(x)).isEqualTo(expected.findLT(x));
+                    int found = slice.find(x);
+                    if (found >= 0) {
+                        assertThat(slice.getMillis(found)).isEqualTo(x);
+                    } else {
+                        assertThat(found).isEqualTo(expected.find(x));
+                        assertThat(slice.findLE(x)).isEqualTo(expected.findLE(x));
+                        assertThat(slice.findGE(x)).isEqualTo(expected.findGE(x));
+                    }
+                }
+            }
+        }
+        assertThat(array.slice(2, 5).get(0)).isEqualTo(Instant.ofEpochMilli(3));
+        assertThatThrownBy(() -> array.slice(2, 5).getMillis(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
 }
@@ -0,0 +1,58 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelUtilTest {
+
+    @Test
+    public void split() {
+        assertThat(ParallelUtil.split(0, 10)).containsExactly(0, 0);
+        assertThat(ParallelUtil.split(15, 10)).containsExactly(0, 15);
+        int[] bounds = ParallelUtil.split(1000, 10);
+        assertThat(bounds[0]).isEqualTo(0);
+        assertThat(bounds[bounds.length - 1]).isEqualTo(1000);
+        for (int i = 1; i < bounds.length; i++) {
+            assertThat(bounds[i] - bounds[i - 1]).isGreaterThanOrEqualTo(10);
+        }
+    }
+
+    @Test
+    public void forEachChunk() {
+        AtomicIntegerArray visited = new AtomicIntegerArray(100_000);
+        ParallelUtil.forEachChunk(visited.length(), 100, (from, toExcl) -> {
+            for (int i = from; i < toExcl; i++) {
+                visited.incrementAndGet(i);
+            }
+        });
+        for (int i = 0; i < visited.length(); i++) {
+            assertThat(visited.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void exceptionIsPropagated() {
+        assertThatThrownBy(() -> ParallelUtil.forEachChunk(100_000, 100, (from, toExcl) -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,84 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.array;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RegularInstantSortedArrayTest {
+
+    @Test
+    public void access() {
+        RegularInstantSortedArray array = RegularInstantSortedArray.of(100, 10, 3);
+        assertThat(array.size()).isEqualTo(3);
+        assertThat(array.getMillis(2)).isEqualTo(120L);
+        assertThat(array.get(1)).isEqualTo(Instant.ofEpochMilli(110));
+        assertThat(array.toMillisArray()).containsExactly(100, 110, 120);
+        assertThatThrownBy(() -> array.getMillis(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void linspace_sameAsMaterialized() {
+        for (long end = 95; end < 135; end++) {
+            assertThat(RegularInstantSortedArray.linspace(100, end, 10).toMillisArray())
+                    .isEqualTo(InstantSortedArray.linspace(100, end, 10).toMillisArray());
+        }
+    }
+
+    @Test
+    public void find_sameAsBinarySearch() {
+        for (int size = 0; size < 5; size++) {
+            RegularInstantSortedArray regular = RegularInstantSortedArray.of(-20, 7, size);
+            InstantSortedArray materialized = InstantSortedArray.ofMillisNoClone(regular.toMillisArray());
+            for (long x = -40; x < 30; x++) {
+                assertThat(regular.find(x)).as("find %s %s", size, x).isEqualTo(materialized.find(x));
+                assertThat(regular.findGE(x)).as("findGE %s %s", size, x).isEqualTo(materialized.findGE(x));
+                assertThat(regular.findGT(x)).as("findGT %s %s", size, x).isEqualTo(materialized.findGT(x));
+                assertThat(regular.findLE(x)).as("findLE %s %s", size, x).isEqualTo(materialized.findLE(x));
+                assertThat(regular.findLT(x)).as("findLT %s %s", size, x).isEqualTo(materialized.findLT(x));
+            }
+        }
+    }
+
+    @Test
+    public void find_extremeValues() {
+        RegularInstantSortedArray array = RegularInstantSortedArray.of(-1000, 1, 10);
+        assertThat(array.findLE(Long.MAX_VALUE)).isEqualTo(9);
+        assertThat(array.findGE(Long.MAX_VALUE)).isEqualTo(10);
+        assertThat(array.findLE(Long.MIN_VALUE)).isEqualTo(-1);
+        assertThat(array.find(Long.MAX_VALUE)).isEqualTo(-11);
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatThrownBy(() -> RegularInstantSortedArray.of(0, 0, 3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RegularInstantSortedArray.of(0, 1, -1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RegularInstantSortedArray.of(Long.MAX_VALUE - 5, 10, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RegularInstantSortedArray.linspace(0, Long.MAX_VALUE, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void sameGrid() {
+        assertThat(RegularInstantSortedArray.sameGrid(RegularInstantSortedArray.of(0, 5, 3), RegularInstantSortedArray.of(0, 5, 3))).isTrue();
+        assertThat(RegularInstantSortedArray.sameGrid(RegularInstantSortedArray.of(0, 5, 3), RegularInstantSortedArray.of(1, 5, 3))).isFalse();
+        assertThat(RegularInstantSortedArray.sameGrid(RegularInstantSortedArray.of(0, 5, 3), RegularInstantSortedArray.of(0, 5, 4))).isFalse();
+        assertThat(RegularInstantSortedArray.sameGrid(RegularInstantSortedArray.of(0, 5, 3), InstantSortedArray.ofMillis(0, 5, 10))).isFalse();
+    }
+}
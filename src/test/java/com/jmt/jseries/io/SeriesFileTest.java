@@ -0,0 +1,156 @@
+/* 
+   Copyright 2017 Jan Marek
+   
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package com.jmt.jseries.io;
+
+import com.jmt.jseries.InstantDoubleSeries;
+import com.jmt.jseries.algebra.Moving;
+import com.jmt.jseries.array.DoubleArray;
+import com.jmt.jseries.array.InstantSortedArray;
+import com.jmt.jseries.array.MappedDoubleArray;
+import com.jmt.jseries.array.MappedInstantSortedArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SeriesFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final InstantDoubleSeries series = InstantDoubleSeries.create(
+            "f\u00f6\u00f6",
+            InstantSortedArray.ofMillis(-5, 1, 1, 10, 20),
+            DoubleArray.of(1.0, 2.0, 3.0, Double.NaN, -4.5),
+            -1.0);
+
+    @Test
+    public void writeAndOpen() throws IOException {
+        Path path = folder.newFile().toPath();
+        SeriesFile.write(path, series);
+        InstantDoubleSeries opened = SeriesFile.open(path);
+
+        assertThat(opened.domain()).isInstanceOf(MappedInstantSortedArray.class);
+        assertThat(opened.values()).isInstanceOf(MappedDoubleArray.class);
+        assertThat(opened.name()).isEqualTo("f\u00f6\u00f6");
+        assertThat(opened.defaultDoubleValue()).isEqualTo(-1.0);
+        assertThat(opened.domain().toMillisArray()).isEqualTo(series.domain().toMillisArray());
+        assertThat(opened.values().toDoubleArray()).isEqualTo(series.values().toDoubleArray());
+        assertThat(opened.timeMillisAt(4)).isEqualTo(20L);
+        assertThat(opened.valueAt(4)).isEqualTo(-4.5);
+        assertThat(opened.applyAsDouble(15)).isNaN();
+        assertThat(opened.applyAsDouble(-10)).isEqualTo(-1.0);
+        assertThat(opened.domain().findGT(1)).isEqualTo(3);
+        assertThat(opened.domain().findLT(1)).isEqualTo(0);
+        assertThat(Moving.sum(opened, 2).values().asList()).isEqualTo(Moving.sum(series, 2).values().asList());
+
+        InstantDoubleSeries slice = opened.slice(1, 4);
+        assertThat(slice.domain()).isInstanceOf(MappedInstantSortedArray.class);
+        assertThat(slice.domain().toMillisArray()).containsExactly(1, 1, 10);
+        assertThat(slice.values().toDoubleArray()).isEqualTo(series.slice(1, 4).values().toDoubleArray());
+        assertThat(slice.domain().findGT(1)).isEqualTo(2);
+    }
+
+    @Test
+    public void largeSeries() throws IOException {
+        int size = 100_000;
+        InstantDoubleSeries large = InstantDoubleSeries.create("large",
+                InstantSortedArray.linspace(0, size * 3L, 3), DoubleArray.linspace(0, size, 1));
+        Path path = folder.newFile().toPath();
+        SeriesFile.write(path, large);
+        InstantDoubleSeries opened = SeriesFile.open(path);
+        assertThat(opened.domain().toMillisArray()).isEqualTo(large.domain().toMillisArray());
+        assertThat(opened.values().toDoubleArray()).isEqualTo(large.values().toDoubleArray());
+        assertThat(opened.domain().findLE(Instant.ofEpochMilli(3001))).isEqualTo(1000);
+    }
+
+    @Test
+    public void chunkedMapping() throws IOException {
+        Path path = folder.newFile().toPath();
+        SeriesFile.write(path, series);
+        //Chunks of 2 values, as columns over 1 GB are mapped
+        InstantDoubleSeries opened = SeriesFile.open(path, 16);
+
+        assertThat(opened.domain().toMillisArray()).isEqualTo(series.domain().toMillisArray());
+        assertThat(opened.values().toDoubleArray()).isEqualTo(series.values().toDoubleArray());
+        assertThat(opened.timeMillisAt(4)).isEqualTo(20L);
+        assertThat(opened.valueAt(2)).isEqualTo(3.0);
+        assertThat(opened.domain().findGT(1)).isEqualTo(3);
+        assertThat(Moving.sum(opened, 2).values().asList()).isEqualTo(Moving.sum(series, 2).values().asList());
+
+        InstantDoubleSeries slice = opened.slice(1, 4);
+        assertThat(slice.domain().toMillisArray()).containsExactly(1, 1, 10);
+        assertThat(slice.values().toDoubleArray()).isEqualTo(series.slice(1, 4).values().toDoubleArray());
+        double[] copy = new double[2];
+        slice.values().getDoubles(1, 3, copy, 0);
+        assertThat(copy).containsExactly(3.0, Double.NaN);
+        assertThatThrownBy(() -> slice.values().getDouble(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void empty() throws IOException {
+        Path path = folder.newFile().toPath();
+        SeriesFile.write(path, InstantDoubleSeries.create("", InstantSortedArray.empty(), DoubleArray.empty(), 3.0));
+        InstantDoubleSeries opened = SeriesFile.open(path);
+        assertThat(opened.size()).isEqualTo(0);
+        assertThat(opened.applyAsDouble(0)).isEqualTo(3.0);
+    }
+
+    @Test
+    public void invalidFile() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[40]);
+        assertThatThrownBy(() -> SeriesFile.open(path)).isInstanceOf(IOException.class).hasMessageContaining("Not a series file");
+
+        SeriesFile.write(path, series);
+        byte[] truncated = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(truncated, truncated.length - 8));
+        assertThatThrownBy(() -> SeriesFile.open(path)).isInstanceOf(IOException.class).hasMessageContaining("Corrupted");
+    }
+
+    @Test
+    public void serializationMaterializes() throws Exception {
+        Path path = folder.newFile().toPath();
+        SeriesFile.write(path, series);
+        InstantDoubleSeries opened = SeriesFile.open(path);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(opened);
+        }
+        InstantDoubleSeries copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (InstantDoubleSeries) in.readObject();
+        }
+        assertThat(copy.domain()).isInstanceOf(InstantSortedArray.class);
+        assertThat(copy.values()).isInstanceOf(DoubleArray.class);
+        assertThat(copy.domain().toMillisArray()).isEqualTo(series.domain().toMillisArray());
+        assertThat(copy.values().toDoubleArray()).isEqualTo(series.values().toDoubleArray());
+        assertThat(copy.name()).isEqualTo("f\u00f6\u00f6");
+    }
+}